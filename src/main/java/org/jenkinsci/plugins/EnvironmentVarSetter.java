@@ -9,18 +9,32 @@ import java.util.logging.Logger;
 import hudson.EnvVars;
 import hudson.model.AbstractBuild;
 import hudson.model.EnvironmentContributingAction;
+import hudson.model.Run;
 import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import jenkins.model.RunAction2;
 import org.apache.commons.lang3.StringUtils;
 
 /**
  * Created by Leo on 4/20/2016.
  * Helper to work with environment variables.
+ * <p>
+ * Only explicitly added variables are stored, {@link #buildDisplayNameVar} is always taken
+ * from the display name of the build so it is not duplicated in build.xml.
  */
-public class EnvironmentVarSetter implements EnvironmentContributingAction {
+public class EnvironmentVarSetter implements EnvironmentContributingAction, RunAction2 {
 
     @CheckForNull
     private transient PrintStream log;
-    private final Map<String, String> envVars = new ConcurrentHashMap<String, String>();
+    @CheckForNull
+    private transient Run<?, ?> run;
+    /**
+     * Immutable copy of {@link #envVars} that is contributed to the environment, rebuilt only when variables change.
+     * Written only while holding the lock of this action, so a stale copy never replaces a newer one.
+     */
+    @CheckForNull
+    private transient volatile Map<String, String> snapshot;
+    private Map<String, String> envVars = new ConcurrentHashMap<String, String>();
 
     private static final Logger LOGGER = Logger.getLogger(EnvironmentVarSetter.class.getName());
 
@@ -28,10 +42,16 @@ public class EnvironmentVarSetter implements EnvironmentContributingAction {
 
     public EnvironmentVarSetter(@CheckForNull String key, @CheckForNull String value, @CheckForNull PrintStream logger) {
         log = logger;
-        envVars.put(key, value);
+        if (!buildDisplayNameVar.equals(key)) {
+            envVars.put(key, value);
+        }
     }
 
     public static void setVar(AbstractBuild build, String key, String value, PrintStream logger) {
+        setVar((Run<?, ?>) build, key, value, logger);
+    }
+
+    public static void setVar(Run<?, ?> build, String key, String value, PrintStream logger) {
         EnvironmentVarSetter action = build.getAction(EnvironmentVarSetter.class);
         if (action == null) {
             action = new EnvironmentVarSetter(key, value, logger);
@@ -41,7 +61,16 @@ public class EnvironmentVarSetter implements EnvironmentContributingAction {
         }
     }
 
-    public void setVar(@CheckForNull String key, @CheckForNull String value) {
+    protected Object readResolve() {
+        if (envVars == null) {
+            envVars = new ConcurrentHashMap<>();
+        }
+        // stored by older versions, now it is derived from the display name
+        envVars.remove(buildDisplayNameVar);
+        return this;
+    }
+
+    public synchronized void setVar(@CheckForNull String key, @CheckForNull String value) {
         if (StringUtils.isBlank(key)) {
             throw new IllegalArgumentException("key shouldn't be null or empty.");
         }
@@ -49,22 +78,31 @@ public class EnvironmentVarSetter implements EnvironmentContributingAction {
             throw new IllegalArgumentException("value shouldn't be null or empty.");
         }
 
-        if (envVars.containsKey(key)) {
-            if (!envVars.get(key).equals(value)) {
-                log("Variable with name '%s' already exists, current value: '%s', new value: '%s'",
-                        key, envVars.get(key), value);
+        if (buildDisplayNameVar.equals(key)) {
+            // display name of the build is used
+            return;
+        }
+
+        String current = envVars.get(key);
+        if (current != null) {
+            if (current.equals(value)) {
+                return;
             }
+            log("Variable with name '%s' already exists, current value: '%s', new value: '%s'",
+                    key, current, value);
         } else {
             log("Create new variable %s=%s", key, value);
         }
 
         envVars.put(key, value);
+        snapshot = Map.copyOf(envVars);
     }
 
     public String getVar(String key) {
-        if (envVars.containsKey(key)) {
-            log("Get var: %s=%s", key, envVars.get(key));
-            return envVars.get(key);
+        String value = buildDisplayNameVar.equals(key) ? displayNameOf(run) : envVars.get(key);
+        if (value != null) {
+            log("Get var: %s=%s", key, value);
+            return value;
         } else {
             log("Var '%s' doesn't exist", key);
             return "";
@@ -83,9 +121,48 @@ public class EnvironmentVarSetter implements EnvironmentContributingAction {
         }
     }
 
+    @Override
+    public void buildEnvironment(@NonNull Run<?, ?> run, @NonNull EnvVars envVars) {
+        envVars.putAll(getSnapshot());
+
+        String displayName = displayNameOf(run);
+        if (displayName != null) {
+            envVars.put(buildDisplayNameVar, displayName);
+        }
+    }
+
     @Override
     public void buildEnvVars(AbstractBuild<?, ?> abstractBuild, EnvVars envVars) {
-        envVars.putAll(this.envVars);
+        buildEnvironment(abstractBuild, envVars);
+    }
+
+    private Map<String, String> getSnapshot() {
+        Map<String, String> variables = snapshot;
+        if (variables == null) {
+            synchronized (this) {
+                variables = snapshot;
+                if (variables == null) {
+                    variables = Map.copyOf(envVars);
+                    snapshot = variables;
+                }
+            }
+        }
+        return variables;
+    }
+
+    @CheckForNull
+    private static String displayNameOf(@CheckForNull Run<?, ?> run) {
+        return run == null ? null : run.getDisplayName();
+    }
+
+    @Override
+    public void onAttached(Run<?, ?> run) {
+        this.run = run;
+    }
+
+    @Override
+    public void onLoad(Run<?, ?> run) {
+        this.run = run;
     }
 
     @Override
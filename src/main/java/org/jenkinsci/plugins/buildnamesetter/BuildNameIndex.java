@@ -0,0 +1,368 @@
+package org.jenkinsci.plugins.buildnamesetter;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.thoughtworks.xstream.io.HierarchicalStreamReader;
+import com.thoughtworks.xstream.io.StreamException;
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.BulkChange;
+import hudson.Extension;
+import hudson.XmlFile;
+import hudson.init.Terminator;
+import hudson.model.Computer;
+import hudson.model.Item;
+import hudson.model.Job;
+import hudson.model.Run;
+import hudson.model.Saveable;
+import hudson.model.TaskListener;
+import hudson.model.listeners.ItemListener;
+import hudson.model.listeners.RunListener;
+import hudson.model.listeners.SaveableListener;
+import hudson.util.XStream2;
+import jenkins.model.Jenkins;
+import jenkins.util.Timer;
+
+/**
+ * Persisted index of the job from display name of the build to its number, so the build can be found by name
+ * without loading the history of the job.
+ * <p>
+ * The index is updated whenever the name is changed by the plugin, when the build is saved with another name
+ * and when the build completes or is deleted. Builds that existed before the index was created, for example builds
+ * created before the plugin was installed, are indexed in the background by {@link #reindex()} which reads only
+ * the display name from {@code build.xml}, so builds are never loaded to be indexed and the lookup never waits
+ * for the history of the job. Only builds with custom display name are indexed.
+ */
+public final class BuildNameIndex implements Saveable {
+
+    private static final Logger LOGGER = Logger.getLogger(BuildNameIndex.class.getName());
+
+    static final String FILE_NAME = "build-name-index.xml";
+
+    /** Changes made within this time in milliseconds are saved together. */
+    private static final long SAVE_DELAY = 1000;
+
+    private static final Map<Job<?, ?>, BuildNameIndex> INDEXES = new ConcurrentHashMap<>();
+
+    /** Display name by the build number. */
+    private final TreeMap<Integer, String> names = new TreeMap<>();
+
+    /** The newest build with given name. */
+    private transient Map<String, Integer> numbers;
+    private transient Job<?, ?> job;
+    private transient ScheduledFuture<?> scheduledSave;
+    private transient Future<?> indexing;
+    /** Builds updated since the indexing has started, they must not be overwritten by its results. */
+    private transient Set<Integer> updated = new HashSet<>();
+    /** Changed when the index is dropped, so results of the indexing started before are ignored. */
+    private transient int generation;
+
+    private BuildNameIndex() {
+    }
+
+    /**
+     * @return index of the job, it is created when it does not exist yet and existing builds are indexed
+     *         in the background
+     */
+    public static BuildNameIndex of(Job<?, ?> job) {
+        return INDEXES.computeIfAbsent(job, BuildNameIndex::load);
+    }
+
+    /**
+     * @return index of the job or {@code null} when the job has no index yet
+     */
+    @CheckForNull
+    private static BuildNameIndex ofExisting(Job<?, ?> job) {
+        BuildNameIndex index = INDEXES.get(job);
+        if (index == null && getFile(job).exists()) {
+            index = of(job);
+        }
+        return index;
+    }
+
+    /**
+     * Records current display name of the build.
+     */
+    static void update(Run<?, ?> run) {
+        BuildNameIndex index = run.hasCustomDisplayName() ? of(run.getParent()) : ofExisting(run.getParent());
+        if (index != null) {
+            index.put(run.getNumber(), run.hasCustomDisplayName() ? run.getDisplayName() : null);
+        }
+    }
+
+    /**
+     * @return number of the newest build with given display name or {@code null} when there is no such build
+     */
+    @CheckForNull
+    public synchronized Integer getNumber(String name) {
+        return numbers.get(name);
+    }
+
+    /**
+     * @return display names of all indexed builds mapped to the number of the newest build with the name
+     */
+    public synchronized Map<String, Integer> getNumbers() {
+        return Collections.unmodifiableMap(new LinkedHashMap<>(numbers));
+    }
+
+    /**
+     * @return {@code true} while builds are being indexed in the background
+     */
+    public synchronized boolean isIndexing() {
+        return indexing != null && !indexing.isDone();
+    }
+
+    /**
+     * Drops the index and indexes all builds of the job again in the background.
+     */
+    public synchronized void reindex() {
+        generation++;
+        names.clear();
+        updated.clear();
+        rebuildNumbers();
+        indexing = Computer.threadPoolForRemoting.submit(this::indexBuilds);
+    }
+
+    private void indexBuilds() {
+        int started;
+        synchronized (this) {
+            started = generation;
+        }
+
+        // only the files are read, builds are not loaded and the lock is not held
+        Map<Integer, String> found = new HashMap<>();
+        File[] directories = job.getBuildDir().listFiles(File::isDirectory);
+        for (File directory : directories != null ? directories : new File[0]) {
+            int number = parseNumber(directory.getName());
+            File buildXml = new File(directory, "build.xml");
+            if (number > 0 && buildXml.isFile()) {
+                try {
+                    String name = readDisplayName(buildXml);
+                    if (name != null) {
+                        found.put(number, name);
+                    }
+                } catch (IOException e) {
+                    LOGGER.log(Level.FINE, "Failed to read display name of " + job.getFullName() + " #" + number, e);
+                }
+            }
+        }
+
+        synchronized (this) {
+            if (started != generation) {
+                return;
+            }
+            found.forEach((number, name) -> {
+                if (!updated.contains(number)) {
+                    names.put(number, name);
+                }
+            });
+            updated.clear();
+            rebuildNumbers();
+            scheduleSave();
+        }
+    }
+
+    /**
+     * @return number of the build stored in the directory or {@code -1} when the directory is not a build
+     */
+    private static int parseNumber(String directoryName) {
+        try {
+            return Integer.parseInt(directoryName);
+        } catch (NumberFormatException e) {
+            // permalinks, legacy identifiers and other files of the job
+            return -1;
+        }
+    }
+
+    /**
+     * Reads the display name of the build from its {@code build.xml} without loading the build.
+     *
+     * @return custom display name of the build or {@code null} when it has none
+     */
+    @CheckForNull
+    static String readDisplayName(File buildXml) throws IOException {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(buildXml.toPath()))) {
+            HierarchicalStreamReader reader = XStream2.getDefaultDriver().createReader(in);
+            try {
+                // only direct children of the build are checked, content of the others is skipped
+                while (reader.hasMoreChildren()) {
+                    reader.moveDown();
+                    if ("displayName".equals(reader.getNodeName())) {
+                        return reader.getValue();
+                    }
+                    reader.moveUp();
+                }
+                return null;
+            } finally {
+                reader.close();
+            }
+        } catch (StreamException e) {
+            throw new IOException("Failed to parse " + buildXml, e);
+        }
+    }
+
+    private synchronized void put(int number, String name) {
+        if (isIndexing()) {
+            updated.add(number);
+        }
+        if (Objects.equals(names.get(number), name)) {
+            return;
+        }
+        String previous = name == null ? names.remove(number) : names.put(number, name);
+        if (previous != null) {
+            numbers.remove(previous);
+            // another build may have the same name
+            names.forEach((n, indexedName) -> {
+                if (indexedName.equals(previous)) {
+                    numbers.put(previous, n);
+                }
+            });
+        }
+        if (name != null) {
+            numbers.merge(name, number, Math::max);
+        }
+        scheduleSave();
+    }
+
+    private void rebuildNumbers() {
+        numbers = new HashMap<>();
+        // ascending order so the newest build wins
+        names.forEach((number, name) -> numbers.put(name, number));
+    }
+
+    private void scheduleSave() {
+        if (scheduledSave == null || scheduledSave.isDone()) {
+            scheduledSave = Timer.get().schedule(this::saveQuietly, SAVE_DELAY, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void saveQuietly() {
+        try {
+            save();
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to save build name index of " + job.getFullName(), e);
+        }
+    }
+
+    @Override
+    public synchronized void save() throws IOException {
+        if (BulkChange.contains(this)) {
+            return;
+        }
+        XmlFile file = getXmlFile(job);
+        file.write(this);
+        SaveableListener.fireOnChange(this, file);
+    }
+
+    private static BuildNameIndex load(Job<?, ?> job) {
+        BuildNameIndex index = new BuildNameIndex();
+        XmlFile file = getXmlFile(job);
+        // builds that existed before the index are indexed once, the following ones are indexed by listeners
+        boolean rebuild = !file.exists();
+        if (!rebuild) {
+            try {
+                file.unmarshal(index);
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Failed to load build name index of " + job.getFullName()
+                        + ", it will be rebuilt", e);
+                index.names.clear();
+                rebuild = true;
+            }
+        }
+        index.job = job;
+        index.rebuildNumbers();
+        if (rebuild) {
+            index.reindex();
+        }
+        return index;
+    }
+
+    private static XmlFile getXmlFile(Job<?, ?> job) {
+        return new XmlFile(Jenkins.XSTREAM2, getFile(job));
+    }
+
+    private static File getFile(Job<?, ?> job) {
+        return new File(job.getRootDir(), FILE_NAME);
+    }
+
+    @Terminator
+    public static void saveAll() {
+        for (BuildNameIndex index : INDEXES.values()) {
+            synchronized (index) {
+                if (index.scheduledSave == null || index.scheduledSave.isDone()) {
+                    continue;
+                }
+                index.scheduledSave.cancel(false);
+            }
+            index.saveQuietly();
+        }
+    }
+
+    @Extension
+    public static final class Listener extends RunListener<Run<?, ?>> {
+
+        @Override
+        public void onCompleted(Run<?, ?> run, @NonNull TaskListener listener) {
+            // name may have been set also by other plugins or pipeline script
+            update(run);
+        }
+
+        @Override
+        public void onDeleted(Run<?, ?> run) {
+            BuildNameIndex index = ofExisting(run.getParent());
+            if (index != null) {
+                index.put(run.getNumber(), null);
+            }
+        }
+    }
+
+    /**
+     * Indexes names set to the build by other plugins or pipeline script while the build is running.
+     */
+    @Extension
+    public static final class SaveListener extends SaveableListener {
+
+        @Override
+        public void onChange(Saveable o, XmlFile file) {
+            if (o instanceof Run<?, ?> run) {
+                update(run);
+            }
+        }
+    }
+
+    @Extension
+    public static final class JobListener extends ItemListener {
+
+        @Override
+        public void onDeleted(Item item) {
+            if (item instanceof Job<?, ?> deleted) {
+                BuildNameIndex index = INDEXES.remove(deleted);
+                if (index != null) {
+                    synchronized (index) {
+                        if (index.scheduledSave != null) {
+                            index.scheduledSave.cancel(false);
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package org.jenkinsci.plugins.buildnamesetter;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.model.Action;
+import hudson.model.Item;
+import hudson.model.Job;
+import hudson.model.Run;
+import jenkins.model.TransientActionFactory;
+import net.sf.json.JSONObject;
+import org.kohsuke.stapler.HttpResponse;
+import org.kohsuke.stapler.HttpResponses;
+import org.kohsuke.stapler.QueryParameter;
+import org.kohsuke.stapler.StaplerResponse2;
+import org.kohsuke.stapler.interceptor.RequirePOST;
+
+/**
+ * Exposes {@link BuildNameIndex} of the job as JSON at {@code /job/<name>/build-names/}.
+ * <ul>
+ *     <li>{@code lookup?name=<display name>} returns the newest build with given name</li>
+ *     <li>{@code reindex} (POST) builds the index again from all builds of the job in the background</li>
+ * </ul>
+ */
+public class BuildNameIndexAction implements Action {
+
+    private final Job<?, ?> job;
+
+    public BuildNameIndexAction(Job<?, ?> job) {
+        this.job = job;
+    }
+
+    public void doIndex(StaplerResponse2 response) throws IOException {
+        job.checkPermission(Item.READ);
+
+        writeJson(response, JSONObject.fromObject(BuildNameIndex.of(job).getNumbers()));
+    }
+
+    public void doLookup(@QueryParameter String name, StaplerResponse2 response) throws IOException {
+        job.checkPermission(Item.READ);
+
+        Integer number = BuildNameIndex.of(job).getNumber(name);
+        // build might have been deleted without notification, for example by removing the directory
+        Run<?, ?> run = number == null ? null : job.getBuildByNumber(number);
+        if (run == null) {
+            response.sendError(StaplerResponse2.SC_NOT_FOUND, "No build with name '" + name + "'");
+            return;
+        }
+
+        JSONObject json = new JSONObject();
+        json.put("name", name);
+        json.put("number", number);
+        json.put("url", run.getUrl());
+        writeJson(response, json);
+    }
+
+    @RequirePOST
+    public HttpResponse doReindex() {
+        job.checkPermission(Item.CONFIGURE);
+
+        BuildNameIndex.of(job).reindex();
+        return HttpResponses.ok();
+    }
+
+    private static void writeJson(StaplerResponse2 response, JSONObject json) throws IOException {
+        response.setContentType("application/json;charset=UTF-8");
+        response.getWriter().print(json.toString());
+    }
+
+    @Override
+    public String getIconFileName() {
+        return null;
+    }
+
+    @Override
+    public String getDisplayName() {
+        return null;
+    }
+
+    @Override
+    public String getUrlName() {
+        return "build-names";
+    }
+
+    @Extension
+    public static class Factory extends TransientActionFactory<Job> {
+
+        @Override
+        public Class<Job> type() {
+            return Job.class;
+        }
+
+        @NonNull
+        @Override
+        public Collection<? extends Action> createFor(@NonNull Job target) {
+            return Collections.singletonList(new BuildNameIndexAction(target));
+        }
+    }
+}
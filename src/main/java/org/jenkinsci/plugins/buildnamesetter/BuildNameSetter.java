@@ -3,17 +3,25 @@ package org.jenkinsci.plugins.buildnamesetter;
 import static org.apache.commons.lang3.BooleanUtils.toBooleanDefaultIfNull;
 
 import java.io.IOException;
+import java.util.Collection;
+import java.util.Objects;
 
 import hudson.Extension;
 import hudson.Launcher;
 import hudson.matrix.MatrixAggregatable;
 import hudson.matrix.MatrixAggregator;
 import hudson.matrix.MatrixBuild;
+import hudson.matrix.MatrixConfiguration;
+import hudson.matrix.MatrixRun;
+import hudson.matrix.listeners.MatrixBuildListener;
 import hudson.model.AbstractBuild;
 import hudson.model.AbstractProject;
 import hudson.model.BuildListener;
+import hudson.model.Run;
 import hudson.tasks.BuildWrapper;
 import hudson.tasks.BuildWrapperDescriptor;
+import org.apache.commons.lang3.StringUtils;
+import org.jenkinsci.plugins.tokenmacro.MacroEvaluationException;
 import org.kohsuke.stapler.DataBoundConstructor;
 import org.kohsuke.stapler.DataBoundSetter;
 
@@ -30,6 +38,8 @@ public class BuildNameSetter extends BuildWrapper implements MatrixAggregatable
     private String descriptionTemplate;
     private Boolean runAtStart = true;
     private Boolean runAtEnd = true;
+    private boolean matrixInherit;
+    private String matrixSuffixTemplate;
 
     @DataBoundConstructor
     public BuildNameSetter(String template, Boolean runAtStart, Boolean runAtEnd) {
@@ -65,6 +75,28 @@ public class BuildNameSetter extends BuildWrapper implements MatrixAggregatable
         return runAtEnd;
     }
 
+    public boolean getMatrixInherit() {
+        return matrixInherit;
+    }
+
+    /**
+     * @param matrixInherit when {@code true} configurations of the matrix project use the name evaluated
+     *                      by the parent build followed by {@link #getMatrixSuffixTemplate()}
+     */
+    @DataBoundSetter
+    public void setMatrixInherit(boolean matrixInherit) {
+        this.matrixInherit = matrixInherit;
+    }
+
+    public String getMatrixSuffixTemplate() {
+        return matrixSuffixTemplate;
+    }
+
+    @DataBoundSetter
+    public void setMatrixSuffixTemplate(String matrixSuffixTemplate) {
+        this.matrixSuffixTemplate = matrixSuffixTemplate;
+    }
+
     protected Object readResolve() {
         if (runAtStart == null) {
             runAtStart = true;
@@ -75,53 +107,156 @@ public class BuildNameSetter extends BuildWrapper implements MatrixAggregatable
         return this;
     }
 
+    /**
+     * Checks whether the templates depend on nothing that could change while the build is running,
+     * so evaluating them again at the end of the build gives the values set at the start.
+     */
+    private boolean isStable(ParentNameAction inherited) {
+        return inherited != null
+                ? CompiledTemplate.isStable(matrixSuffixTemplate)
+                : CompiledTemplate.isStable(template, descriptionTemplate);
+    }
+
     @Override
     public Environment setUp(AbstractBuild build, Launcher launcher, BuildListener listener) {
 
-        Executor executor = new Executor(build, listener);
+        ParentNameAction inherited = matrixInherit ? ParentNameAction.of(build) : null;
 
+        AppliedValues applied = null;
         if (runAtStart) {
-            executor.setName(template);
-            executor.setDescription(descriptionTemplate);
+            Executor executor = new Executor(build, listener, null, NamingPhase.START);
+            setNameAndDescription(executor, inherited);
+            if (!executor.isIncomplete() && isStable(inherited)) {
+                applied = AppliedValues.of(build);
+            }
         }
+        AppliedValues appliedAtStart = applied;
 
         return new Environment() {
             @Override
             public boolean tearDown(AbstractBuild build, BuildListener listener) {
-                if (runAtEnd) {
-                    executor.setName(template);
-                    executor.setDescription(descriptionTemplate);
+                // values of stable templates are set again only when something else has changed them meanwhile
+                if (runAtEnd && (appliedAtStart == null || !appliedAtStart.isCurrent(build))) {
+                    setNameAndDescription(new Executor(build, listener, null, NamingPhase.END), inherited);
                 }
                 return true;
             }
         };
     }
 
+    private void setNameAndDescription(Executor executor, ParentNameAction inherited) {
+        if (inherited == null) {
+            executor.setNameAndDescription(template, descriptionTemplate);
+            return;
+        }
+
+        // configuration evaluates only its own suffix, the rest was evaluated by the parent
+        String suffix = "";
+        if (StringUtils.isNotEmpty(matrixSuffixTemplate)) {
+            try {
+                suffix = executor.evaluateMacro(matrixSuffixTemplate);
+            } catch (MacroEvaluationException e) {
+                executor.getListener().getLogger().println("Failed to evaluate suffix macro:" + e.toString());
+            }
+        }
+        executor.setEvaluatedNameAndDescription(inherited.getName() + suffix, inherited.getDescription());
+    }
+
 
     // support for matrix project
     public MatrixAggregator createAggregator(MatrixBuild build, Launcher launcher, BuildListener listener) {
 
-        Executor executor = new Executor(build, listener);
+        // progress is counted only when it is shown, saves are coalesced by BuildSaver
+        boolean showsProgress = CompiledTemplate.usesAnyOf(MatrixProgressAction.VARIABLES, template, descriptionTemplate);
+        MatrixProgressAction progress = showsProgress ? new MatrixProgressAction(countScheduledConfigurations(build)) : null;
+        if (progress != null) {
+            build.addOrReplaceAction(progress);
+        }
 
         return new MatrixAggregator(build, launcher, listener) {
+            private AppliedValues appliedAtStart;
+
+            // new executor for every update so the environment reflects the current progress
+            private Executor refresh() {
+                Executor executor = new Executor(build, listener, null, NamingPhase.MATRIX);
+                executor.setNameAndDescription(template, descriptionTemplate);
+                return executor;
+            }
+
             @Override
             public boolean startBuild() throws InterruptedException, IOException {
-                executor.setName(template);
-                executor.setDescription(descriptionTemplate);
+                Executor executor = refresh();
+                if (!executor.isIncomplete() && CompiledTemplate.isStable(template, descriptionTemplate)) {
+                    appliedAtStart = AppliedValues.of(build);
+                }
+                if (matrixInherit) {
+                    build.addOrReplaceAction(new ParentNameAction(build.getDisplayName(),
+                            DescriptionFileAction.getDescription(build)));
+                }
 
                 return super.startBuild();
             }
 
+            @Override
+            public boolean endRun(MatrixRun run) throws InterruptedException, IOException {
+                if (progress != null) {
+                    progress.record(run.getResult());
+                    refresh();
+                }
+
+                return super.endRun(run);
+            }
+
             @Override
             public boolean endBuild() throws InterruptedException, IOException {
-                executor.setName(template);
-                executor.setDescription(descriptionTemplate);
+                if (progress != null) {
+                    // configurations that were not run, for example because touchstone failed, are not counted
+                    progress.finish();
+                }
+                if (appliedAtStart == null || !appliedAtStart.isCurrent(build)) {
+                    refresh();
+                }
 
                 return super.endBuild();
             }
         };
     }
 
+    /**
+     * @return number of configurations the build runs, the combination filter of the project and build parameters
+     *         are applied by the build and listeners can skip other configurations
+     */
+    private static int countScheduledConfigurations(MatrixBuild build) {
+        Collection<MatrixConfiguration> configurations =
+                build.getExecution() instanceof MatrixBuild.MatrixBuildExecution execution
+                        ? execution.getActiveConfigurations() : build.getParent().getActiveConfigurations();
+        int count = 0;
+        for (MatrixConfiguration configuration : configurations) {
+            if (MatrixBuildListener.buildConfiguration(build, configuration)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Name and description of the build right after they were set at the start of the build.
+     */
+    private record AppliedValues(String name, String description) {
+
+        static AppliedValues of(Run<?, ?> run) {
+            return new AppliedValues(run.getDisplayName(), DescriptionFileAction.getDescription(run));
+        }
+
+        /**
+         * @return {@code true} if neither the name nor the description was changed since
+         */
+        boolean isCurrent(Run<?, ?> run) {
+            return Objects.equals(name, run.getDisplayName())
+                    && Objects.equals(description, DescriptionFileAction.getDescription(run));
+        }
+    }
+
     @Extension
     public static class DescriptorImpl extends BuildWrapperDescriptor {
         @Override
@@ -0,0 +1,72 @@
+package org.jenkinsci.plugins.buildnamesetter;
+
+import java.io.IOException;
+
+import hudson.Extension;
+import hudson.FilePath;
+import hudson.model.AbstractBuild;
+import hudson.model.Job;
+import hudson.model.Queue;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.model.queue.Tasks;
+import hudson.security.ACL;
+import hudson.security.ACLContext;
+import jenkins.model.Jenkins;
+import org.apache.commons.lang3.StringUtils;
+import org.jenkinsci.plugins.tokenmacro.DataBoundTokenMacro;
+import org.jenkinsci.plugins.tokenmacro.MacroEvaluationException;
+import org.springframework.security.core.Authentication;
+
+/**
+ * Number of the newest build with given display name, looked up in {@link BuildNameIndex}.
+ * For example {@code ${BUILD_NUMBER_BY_NAME,name="4.12.0"}} or
+ * {@code ${BUILD_NUMBER_BY_NAME,name="4.12.0",job="folder/release"}}.
+ */
+@Extension
+public class BuildNumberByNameMacro extends DataBoundTokenMacro {
+
+    private static final String MACRO_NAME = "BUILD_NUMBER_BY_NAME";
+
+    @Parameter(required = true)
+    public String name = "";
+
+    /** Full name of the job, the job of the build when empty. */
+    @Parameter
+    public String job = "";
+
+    @Override
+    public boolean acceptsMacroName(String macroName) {
+        return MACRO_NAME.equals(macroName);
+    }
+
+    @Override
+    public String evaluate(AbstractBuild<?, ?> context, TaskListener listener, String macroName)
+            throws MacroEvaluationException, IOException, InterruptedException {
+        return evaluate(context, null, listener, macroName);
+    }
+
+    @Override
+    public String evaluate(Run<?, ?> run, FilePath workspace, TaskListener listener, String macroName)
+            throws MacroEvaluationException {
+        Job<?, ?> target = StringUtils.isEmpty(job) ? run.getParent() : findJob(run);
+        // jobs that cannot be read are reported as missing, so builds cannot find out which jobs exist
+        if (target == null) {
+            throw new MacroEvaluationException("Job '" + job + "' does not exist");
+        }
+
+        Integer number = BuildNameIndex.of(target).getNumber(name);
+        return number == null ? "" : String.valueOf(number);
+    }
+
+    /**
+     * @return the job when it exists and can be read by the build, {@code null} otherwise
+     */
+    private Job<?, ?> findJob(Run<?, ?> run) {
+        Authentication authentication = run.getParent() instanceof Queue.Task task
+                ? Tasks.getAuthenticationOf2(task) : Jenkins.getAuthentication2();
+        try (ACLContext ignored = ACL.as2(authentication)) {
+            return Jenkins.get().getItemByFullName(job, Job.class);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package org.jenkinsci.plugins.buildnamesetter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.init.Terminator;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.model.listeners.RunListener;
+import jenkins.util.SystemProperties;
+import jenkins.util.Timer;
+
+/**
+ * Coalesces saves of running builds which name or description is updated frequently.
+ * <p>
+ * The first save is done immediately, following saves requested within
+ * {@link #MIN_SAVE_INTERVAL} are merged into one save done when the interval elapses.
+ * Pending saves are flushed when the build completes and when Jenkins is shut down. Builds are weakly referenced,
+ * so builds that never complete, for example because the controller was restarted, are not kept in the memory.
+ */
+public final class BuildSaver {
+
+    private static final Logger LOGGER = Logger.getLogger(BuildSaver.class.getName());
+
+    /**
+     * Minimal time between two saves of the same build in milliseconds, {@code 0} saves every change immediately.
+     */
+    static final long MIN_SAVE_INTERVAL = SystemProperties.getLong(BuildSaver.class.getName() + ".minSaveInterval", 5000L);
+
+    private static final Map<Run<?, ?>, State> STATES = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private BuildSaver() {
+    }
+
+    /**
+     * Saves the build now or schedules the save if the build was saved recently.
+     */
+    public static void save(Run<?, ?> run) throws IOException {
+        // builds that are not running are not flushed on completion so they are always saved immediately
+        if (MIN_SAVE_INTERVAL <= 0 || !run.isBuilding()) {
+            saveNow(run);
+            return;
+        }
+
+        State state = STATES.computeIfAbsent(run, r -> new State());
+        synchronized (state) {
+            if (state.scheduled != null) {
+                // change is saved together with the one that is already waiting
+                return;
+            }
+
+            long wait = state.lastSave + MIN_SAVE_INTERVAL - System.currentTimeMillis();
+            if (wait > 0) {
+                state.scheduled = Timer.get().schedule(() -> flush(run), wait, TimeUnit.MILLISECONDS);
+                return;
+            }
+            state.lastSave = System.currentTimeMillis();
+        }
+        saveNow(run);
+    }
+
+    /**
+     * Saves the build if there is a pending save.
+     */
+    public static void flush(Run<?, ?> run) {
+        State state = STATES.get(run);
+        if (state == null) {
+            return;
+        }
+
+        synchronized (state) {
+            if (state.scheduled == null) {
+                return;
+            }
+            state.scheduled.cancel(false);
+            state.scheduled = null;
+            state.lastSave = System.currentTimeMillis();
+        }
+
+        try {
+            saveNow(run);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to save " + run, e);
+        }
+    }
+
+    private static void saveNow(Run<?, ?> run) throws IOException {
+        NamingMetrics.recordBuildSave();
+        run.save();
+    }
+
+    @Terminator
+    public static void flushAll() {
+        List<Run<?, ?>> runs;
+        synchronized (STATES) {
+            runs = new ArrayList<>(STATES.keySet());
+        }
+        for (Run<?, ?> run : runs) {
+            flush(run);
+        }
+    }
+
+    private static final class State {
+        private long lastSave;
+        private ScheduledFuture<?> scheduled;
+    }
+
+    @Extension
+    public static final class FlushOnCompletion extends RunListener<Run<?, ?>> {
+
+        @Override
+        public void onCompleted(Run<?, ?> run, @NonNull TaskListener listener) {
+            flush(run);
+            STATES.remove(run);
+        }
+
+        @Override
+        public void onDeleted(Run<?, ?> run) {
+            State state = STATES.remove(run);
+            if (state != null) {
+                synchronized (state) {
+                    if (state.scheduled != null) {
+                        state.scheduled.cancel(false);
+                    }
+                }
+            }
+        }
+    }
+}
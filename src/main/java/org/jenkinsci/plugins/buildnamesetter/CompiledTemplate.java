@@ -0,0 +1,282 @@
+package org.jenkinsci.plugins.buildnamesetter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import jenkins.util.SystemProperties;
+import org.jenkinsci.plugins.tokenmacro.MacroEvaluationException;
+
+/**
+ * Template split once into literal text and macro segments.
+ * <p>
+ * Literal segments are copied as they are so templates without any macro are never passed to
+ * {@link org.jenkinsci.plugins.tokenmacro.TokenMacro}. Compiled templates are shared through a bounded LRU cache
+ * because thousands of jobs usually use only a handful of different templates.
+ */
+public final class CompiledTemplate {
+
+    private static final int CACHE_SIZE = SystemProperties.getInteger(CompiledTemplate.class.getName() + ".cacheSize", 256);
+
+    /**
+     * Variables and tokens that are known not to change once the build is started.
+     */
+    private static final Set<String> STABLE_NAMES = Set.of(
+            "BUILD_NUMBER", "BUILD_ID", "BUILD_TAG", "BUILD_URL",
+            "JOB_NAME", "JOB_BASE_NAME", "JOB_URL", "JENKINS_URL",
+            "NODE_NAME", "NODE_LABELS", "EXECUTOR_NUMBER", "WORKSPACE");
+
+    private static final Pattern ENV_VAR_ARGUMENT = Pattern.compile("var\\s*=\\s*\"([^\"]*)\"");
+
+    private static final Map<String, CompiledTemplate> CACHE = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, CompiledTemplate> eldest) {
+                    return size() > CACHE_SIZE;
+                }
+            });
+
+    private final String template;
+    private final List<Segment> segments;
+    private final List<String> macros;
+    private final boolean stable;
+
+    private CompiledTemplate(String template) {
+        this.template = template;
+        this.segments = parse(template);
+
+        Set<String> distinct = new LinkedHashSet<>();
+        for (Segment segment : segments) {
+            if (segment.macro()) {
+                distinct.add(segment.text());
+            }
+        }
+        this.macros = List.copyOf(distinct);
+        this.stable = macros.stream().allMatch(CompiledTemplate::isStableMacro);
+    }
+
+    public static CompiledTemplate compile(String template) {
+        CompiledTemplate compiled = CACHE.get(template);
+        if (compiled == null) {
+            compiled = new CompiledTemplate(template);
+            CACHE.put(template, compiled);
+        }
+        return compiled;
+    }
+
+    public String getTemplate() {
+        return template;
+    }
+
+    /**
+     * @return {@code true} when the template does not contain any macro
+     */
+    public boolean isLiteral() {
+        return macros.isEmpty();
+    }
+
+    /**
+     * @return distinct macro segments in order of appearance, for example {@code ${BUILD_NUMBER}}
+     */
+    public List<String> getMacros() {
+        return macros;
+    }
+
+    /**
+     * @return {@code true} when the template depends only on values that do not change during the build
+     *         so evaluating it again gives the same result
+     */
+    public boolean isStable() {
+        return stable;
+    }
+
+    /**
+     * Checks whether all of given templates are stable, {@code null} and empty templates are stable.
+     */
+    public static boolean isStable(String... templates) {
+        for (String template : templates) {
+            if (template != null && !compile(template).isStable()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether any of given templates uses any of given variables or tokens.
+     */
+    public static boolean usesAnyOf(Set<String> names, String... templates) {
+        for (String template : templates) {
+            if (template != null) {
+                for (String macro : compile(template).getMacros()) {
+                    if (names.contains(referencedName(macro))) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Evaluates the template.
+     *
+     * @param expander  evaluates single macro segment
+     * @param evaluated macro segments that were already evaluated in the current phase, updated with new results
+     * @return evaluated template
+     */
+    public String evaluate(MacroExpander expander, Map<String, String> evaluated) throws MacroEvaluationException {
+        if (isLiteral()) {
+            return template;
+        }
+
+        StringBuilder result = new StringBuilder(template.length());
+        for (Segment segment : segments) {
+            if (segment.macro()) {
+                String value = evaluated.get(segment.text());
+                if (value == null) {
+                    value = Objects.requireNonNullElse(expander.expand(segment.text()), "");
+                    evaluated.put(segment.text(), value);
+                }
+                result.append(value);
+            } else {
+                result.append(segment.text());
+            }
+        }
+        return result.toString();
+    }
+
+    /**
+     * Renders the template using only macros that were already evaluated, other macros are left out.
+     * Used when the evaluation could not be finished.
+     */
+    public String evaluatePartially(Map<String, String> evaluated) {
+        StringBuilder result = new StringBuilder(template.length());
+        for (Segment segment : segments) {
+            if (segment.macro()) {
+                result.append(Objects.toString(evaluated.get(segment.text()), ""));
+            } else {
+                result.append(segment.text());
+            }
+        }
+        return result.toString();
+    }
+
+    private static List<Segment> parse(String template) {
+        List<Segment> segments = new ArrayList<>();
+        int literalStart = 0;
+        int position = 0;
+        while (position < template.length()) {
+            if (template.charAt(position) == '$') {
+                if (position > literalStart) {
+                    segments.add(new Segment(template.substring(literalStart, position), false));
+                }
+                int end = macroEnd(template, position);
+                segments.add(new Segment(template.substring(position, end), true));
+                position = end;
+                literalStart = end;
+            } else {
+                position++;
+            }
+        }
+        if (literalStart < template.length()) {
+            segments.add(new Segment(template.substring(literalStart), false));
+        }
+        return segments;
+    }
+
+    /**
+     * Finds the end of the macro that starts at given position. When the macro cannot be parsed
+     * the remaining part of the template is treated as the macro so TokenMacro decides what to do with it.
+     */
+    private static int macroEnd(String template, int start) {
+        int next = start + 1;
+        if (next >= template.length()) {
+            return template.length();
+        }
+
+        char c = template.charAt(next);
+        if (c == '$') {
+            // escaped dollar sign, keep it together with whatever follows
+            return macroEnd(template, next);
+        }
+        if (c == '{') {
+            int depth = 0;
+            boolean quoted = false;
+            for (int i = next; i < template.length(); i++) {
+                char current = template.charAt(i);
+                if (quoted) {
+                    if (current == '\\') {
+                        i++;
+                    } else if (current == '"') {
+                        quoted = false;
+                    }
+                } else if (current == '"') {
+                    quoted = true;
+                } else if (current == '{') {
+                    depth++;
+                } else if (current == '}' && --depth == 0) {
+                    return i + 1;
+                }
+            }
+            return template.length();
+        }
+
+        int end = next;
+        while (end < template.length() && isNameChar(template.charAt(end))) {
+            end++;
+        }
+        return end;
+    }
+
+    private static boolean isStableMacro(String macro) {
+        if (macro.startsWith("$$")) {
+            // escaped, evaluates to literal text
+            return true;
+        }
+        return STABLE_NAMES.contains(referencedName(macro));
+    }
+
+    /**
+     * @return name of the token or variable used by the macro, for ENV token name of the variable it reads
+     */
+    private static String referencedName(String macro) {
+        String name = macroName(macro);
+        if (name.equals("ENV")) {
+            Matcher matcher = ENV_VAR_ARGUMENT.matcher(macro);
+            return matcher.find() ? matcher.group(1) : name;
+        }
+        return name;
+    }
+
+    private static String macroName(String macro) {
+        int start = macro.startsWith("${") ? 2 : 1;
+        int end = start;
+        while (end < macro.length() && isNameChar(macro.charAt(end))) {
+            end++;
+        }
+        return macro.substring(start, end);
+    }
+
+    private static boolean isNameChar(char c) {
+        return c == '_' || (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9');
+    }
+
+    private record Segment(String text, boolean macro) {
+    }
+
+    /**
+     * Evaluates single macro segment of the template.
+     */
+    @FunctionalInterface
+    public interface MacroExpander {
+        String expand(String macro) throws MacroEvaluationException;
+    }
+}
@@ -0,0 +1,251 @@
+package org.jenkinsci.plugins.buildnamesetter;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.ref.SoftReference;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Objects;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import hudson.Extension;
+import hudson.Util;
+import hudson.XmlFile;
+import hudson.model.InvisibleAction;
+import hudson.model.Run;
+import hudson.model.Saveable;
+import hudson.model.listeners.SaveableListener;
+import jenkins.model.RunAction2;
+import jenkins.util.SystemProperties;
+import org.apache.commons.lang3.StringUtils;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Keeps description that is longer than {@link #getThreshold()} in the compressed file in the build directory,
+ * so it is not parsed every time the build is loaded. The description of the build contains only the summary,
+ * the full text is read when its page is shown.
+ * <p>
+ * When the description is changed by other means, for example edited on the build page, the file is outdated
+ * and it is dropped.
+ */
+public class DescriptionFileAction extends InvisibleAction implements RunAction2 {
+
+    private static final Logger LOGGER = Logger.getLogger(DescriptionFileAction.class.getName());
+
+    /**
+     * Length of description above which it is stored in the separate file, {@code 0} means always in the build.
+     */
+    private static volatile int threshold =
+            SystemProperties.getInteger(DescriptionFileAction.class.getName() + ".threshold", 0);
+
+    static final String FILE_NAME = "build-description.html.gz";
+
+    private static final int SUMMARY_LENGTH = 200;
+
+    /** Digest of the stored description, so unchanged description does not have to be read. */
+    private String digest;
+    /** Description of the build set together with the file, it is different when the file is outdated. */
+    private String summary;
+
+    private transient Run<?, ?> run;
+    private transient SoftReference<String> cache;
+    /** Description that has not been written to the file yet. */
+    private transient volatile String pending;
+
+    DescriptionFileAction(Run<?, ?> run) {
+        this.run = run;
+    }
+
+    static int getThreshold() {
+        return threshold;
+    }
+
+    @Restricted(NoExternalUse.class)
+    static void setThreshold(int threshold) {
+        DescriptionFileAction.threshold = threshold;
+    }
+
+    public Run<?, ?> getRun() {
+        return run;
+    }
+
+    @Override
+    public String getUrlName() {
+        return "full-description";
+    }
+
+    /**
+     * Sets the description of the run in the memory, long description is written to the separate file
+     * by {@link #store(Run)}. The run is not saved, this is up to the caller.
+     *
+     * @return {@code true} if the description was changed
+     */
+    static boolean setDescription(Run<?, ?> run, String description) throws IOException {
+        DescriptionFileAction action = getCurrent(run);
+        if (threshold <= 0 || description.length() <= threshold) {
+            if (action != null) {
+                run.removeAction(action);
+            } else if (Objects.equals(description, run.getDescription())) {
+                return false;
+            }
+            run.setDescription(description);
+            return true;
+        }
+
+        String newDigest = Util.getDigestOf(description);
+        if (action != null && newDigest.equals(action.digest)) {
+            return false;
+        }
+        if (action == null) {
+            action = new DescriptionFileAction(run);
+            run.addAction(action);
+        }
+        action.digest = newDigest;
+        action.summary = summarize(description);
+        action.setPending(description);
+        run.setDescription(action.summary);
+        return true;
+    }
+
+    /**
+     * Writes the description set by {@link #setDescription(Run, String)} to the file, or deletes the file when
+     * the description is kept in the build. Callers must not write files of the same run at the same time.
+     */
+    static void store(Run<?, ?> run) throws IOException {
+        DescriptionFileAction action = run.getAction(DescriptionFileAction.class);
+        if (action == null) {
+            Files.deleteIfExists(new File(run.getRootDir(), FILE_NAME).toPath());
+            return;
+        }
+
+        String description = action.pending;
+        if (description != null) {
+            action.write(description);
+        }
+    }
+
+    /**
+     * @return full description of the run, also when it is stored in the file
+     */
+    static String getDescription(Run<?, ?> run) {
+        DescriptionFileAction action = getCurrent(run);
+        String description = action == null ? null : action.getDescription();
+        return description != null ? description : run.getDescription();
+    }
+
+    /**
+     * @return the action of the run or {@code null} when there is none, outdated action is removed
+     */
+    @CheckForNull
+    private static DescriptionFileAction getCurrent(Run<?, ?> run) {
+        DescriptionFileAction action = run.getAction(DescriptionFileAction.class);
+        if (action != null && !action.isCurrent()) {
+            // the file is deleted when the run is saved
+            run.removeAction(action);
+            return null;
+        }
+        return action;
+    }
+
+    /**
+     * @return {@code true} when the description of the run has not been changed since the file was written
+     */
+    public boolean isCurrent() {
+        if (summary == null) {
+            // stored by older version, the summary was not kept
+            String description = getDescription();
+            summary = description == null ? null : summarize(description);
+        }
+        return Objects.equals(summary, run.getDescription());
+    }
+
+    /**
+     * @return full description or {@code null} when the file cannot be read
+     */
+    public String getDescription() {
+        String description = pending;
+        if (description == null && cache != null) {
+            description = cache.get();
+        }
+        if (description == null) {
+            try (InputStream in = new GZIPInputStream(Files.newInputStream(getFile().toPath()))) {
+                description = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+                cache = new SoftReference<>(description);
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Failed to read description of " + run, e);
+            }
+        }
+        return description;
+    }
+
+    private synchronized void setPending(String description) {
+        pending = description;
+        cache = new SoftReference<>(description);
+    }
+
+    private void write(String description) throws IOException {
+        File file = getFile();
+        // unique name, so the file deleted by DropOutdated at the same time is never half written
+        Path tmp = Files.createTempFile(file.getParentFile().toPath(), FILE_NAME, ".tmp");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(tmp))) {
+            out.write(description.getBytes(StandardCharsets.UTF_8));
+        }
+        Files.move(tmp, file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        synchronized (this) {
+            // newer description may have been set in the meantime, it is written by its own update
+            if (pending == description) {
+                pending = null;
+            }
+        }
+    }
+
+    private File getFile() {
+        return new File(run.getRootDir(), FILE_NAME);
+    }
+
+    /**
+     * @return beginning of the description as plain text so the cut does not break the markup
+     */
+    static String summarize(String description) {
+        String text = StringUtils.normalizeSpace(description.replaceAll("<[^>]*>", " "));
+        return StringUtils.abbreviate(text, SUMMARY_LENGTH);
+    }
+
+    /**
+     * Drops the file of the run which description was changed by other means than this plugin.
+     */
+    @Extension
+    public static final class DropOutdated extends SaveableListener {
+
+        @Override
+        public void onChange(Saveable o, XmlFile file) {
+            if (o instanceof Run<?, ?> run && run.getAction(DescriptionFileAction.class) != null
+                    && getCurrent(run) == null) {
+                try {
+                    store(run);
+                } catch (IOException e) {
+                    LOGGER.log(Level.WARNING, "Failed to delete outdated description of " + run, e);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void onAttached(Run<?, ?> r) {
+        run = r;
+    }
+
+    @Override
+    public void onLoad(Run<?, ?> r) {
+        run = r;
+    }
+}
@@ -0,0 +1,96 @@
+package org.jenkinsci.plugins.buildnamesetter;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import hudson.markup.MarkupFormatter;
+import hudson.model.InvisibleAction;
+import hudson.model.Run;
+import jenkins.model.Jenkins;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Description of the build split into sections identified by the key, for example deployment target, coverage
+ * or links to artifacts. Every update changes only its own section, the description of the build is not touched.
+ * <p>
+ * Only the sections are persisted, the HTML is rendered when the build page is shown for the first time and kept
+ * in the memory until the sections or the markup formatter change, so changes of the markup formatter are applied
+ * to existing builds.
+ */
+public class DescriptionSectionsAction extends InvisibleAction {
+
+    /**
+     * Sections in the order they were added. The map is never modified, every update replaces it with a new one,
+     * so the build can be saved while the sections are updated.
+     */
+    private volatile LinkedHashMap<String, String> sections = new LinkedHashMap<>();
+
+    /** Sections rendered by the markup formatter, {@code null} until they are shown after they were changed. */
+    private transient volatile Rendered rendered;
+
+    /**
+     * Sets the section of the description, empty value removes the section. The run is not saved,
+     * this is up to the caller.
+     *
+     * @return {@code true} if the section was changed
+     */
+    static boolean setSection(Run<?, ?> run, String key, String value) {
+        DescriptionSectionsAction action = run.getAction(DescriptionSectionsAction.class);
+        if (action == null) {
+            if (StringUtils.isEmpty(value)) {
+                return false;
+            }
+            action = new DescriptionSectionsAction();
+            run.addAction(action);
+        }
+        return action.set(key, value);
+    }
+
+    private synchronized boolean set(String key, String value) {
+        LinkedHashMap<String, String> updated = new LinkedHashMap<>(sections);
+        String previous = StringUtils.isEmpty(value) ? updated.remove(key) : updated.put(key, value);
+        if (Objects.equals(previous, StringUtils.defaultIfEmpty(value, null))) {
+            return false;
+        }
+        sections = updated;
+        rendered = null;
+        return true;
+    }
+
+    public Map<String, String> getSections() {
+        return Collections.unmodifiableMap(sections);
+    }
+
+    /**
+     * @return sections rendered by the markup formatter, every section is translated on its own
+     *         so markup of one section cannot affect the others
+     */
+    public String getHtml() throws IOException {
+        MarkupFormatter formatter = Jenkins.get().getMarkupFormatter();
+        Rendered current = rendered;
+        if (current != null && current.formatter() == formatter) {
+            return current.html();
+        }
+
+        Map<String, String> rendering = sections;
+        StringBuilder html = new StringBuilder();
+        for (String section : rendering.values()) {
+            html.append("<div class=\"build-name-setter-section\">")
+                    .append(formatter.translate(section))
+                    .append("</div>");
+        }
+        synchronized (this) {
+            // sections changed while they were rendered are rendered again next time
+            if (sections == rendering) {
+                rendered = new Rendered(formatter, html.toString());
+            }
+        }
+        return html.toString();
+    }
+
+    private record Rendered(MarkupFormatter formatter, String html) {
+    }
+}
@@ -1,77 +1,444 @@
 package org.jenkinsci.plugins.buildnamesetter;
 
-import java.io.File;
 import java.io.IOException;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
 
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import hudson.BulkChange;
+import hudson.EnvVars;
 import hudson.FilePath;
+import hudson.Util;
 import hudson.model.AbstractBuild;
+import hudson.model.Computer;
 import hudson.model.Run;
 import hudson.model.TaskListener;
+import hudson.security.ACL;
+import hudson.security.ACLContext;
+import jenkins.model.Jenkins;
+import jenkins.util.SystemProperties;
 import org.apache.commons.lang3.StringUtils;
 import org.jenkinsci.plugins.EnvironmentVarSetter;
 import org.jenkinsci.plugins.tokenmacro.MacroEvaluationException;
 import org.jenkinsci.plugins.tokenmacro.TokenMacro;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+import org.springframework.security.core.Authentication;
 
 /**
+ * Evaluates templates and applies them to the build. One instance represents one phase of the build, the environment
+ * of the build is computed at most once and shared by all templates evaluated by the instance.
+ *
  * @author Damian Szczepanik (damianszczepanik@github)
  */
 public class Executor {
 
+    /**
+     * Maximum time in seconds the evaluation of one template may take, {@code 0} means no limit.
+     */
+    private static volatile long evaluationTimeout =
+            SystemProperties.getLong(Executor.class.getName() + ".evaluationTimeout", 0L);
+
     private final Run run;
     private final TaskListener listener;
+    private final FilePath workspace;
+    private final NamingPhase phase;
+
+    private static final Set<String> DISPLAY_NAME = Set.of(EnvironmentVarSetter.buildDisplayNameVar);
+
+    private volatile EnvVars environment;
+    private volatile boolean incomplete;
 
     public Executor(Run run, TaskListener listener) {
+        this(run, listener, null);
+    }
+
+    /**
+     * @param workspace workspace where file tokens are evaluated, when {@code null} the workspace of the build is used
+     *                  and the build directory on the controller if the build has no workspace
+     */
+    public Executor(Run run, TaskListener listener, @CheckForNull FilePath workspace) {
+        this(run, listener, workspace, NamingPhase.STEP);
+    }
+
+    /**
+     * @param phase phase of the build under which {@link NamingMetrics} are recorded
+     */
+    public Executor(Run run, TaskListener listener, @CheckForNull FilePath workspace, NamingPhase phase) {
         this.run = run;
         this.listener = listener;
+        this.workspace = workspace != null ? workspace : getWorkspace(run);
+        this.phase = phase;
     }
 
-    public void setName(String nameTemplate) {
-        try {
-            String name = evaluateMacro(nameTemplate);
-            listener.getLogger().println("New run name is '" + name + "'");
-            run.setDisplayName(name);
-            setVariable(nameTemplate);
-        } catch (IOException e) {
-            listener.error(e.getMessage());
-        } catch (MacroEvaluationException e) {
-            // should be marked as failure but then many configuration
-            // that work with older version of the plugin will fail
-            listener.getLogger().println("Failed to evaluate name macro:" + e.toString());
+    private static FilePath getWorkspace(Run run) {
+        if (run instanceof AbstractBuild abstractBuild) {
+            FilePath workspace = abstractBuild.getWorkspace();
+            if (workspace != null) {
+                return workspace;
+            }
         }
+        return new FilePath(run.getRootDir());
     }
 
-    public void setDescription(String descriptionTemplate) {
+    static long getEvaluationTimeout() {
+        return evaluationTimeout;
+    }
+
+    @Restricted(NoExternalUse.class)
+    static void setEvaluationTimeout(long evaluationTimeout) {
+        Executor.evaluationTimeout = evaluationTimeout;
+    }
+
+    public TaskListener getListener() {
+        return listener;
+    }
+
+    /**
+     * @return {@code true} if some template evaluated by this instance failed or was evaluated only partially
+     */
+    public boolean isIncomplete() {
+        return incomplete;
+    }
+
+    /**
+     * Updates name, description and {@link EnvironmentVarSetter#buildDisplayNameVar} variable
+     * as one change so the build is saved only once. The build is not saved at all when neither
+     * name nor description has changed, frequent saves are coalesced by {@link BuildSaver}.
+     *
+     * @param nameTemplate        template of the name, skipped when {@code null}
+     * @param descriptionTemplate template of the description, skipped when empty
+     */
+    public void setNameAndDescription(String nameTemplate, String descriptionTemplate) {
+        // macros shared by both templates are evaluated only once
+        Map<String, String> evaluated = new ConcurrentHashMap<>();
+        String name = nameTemplate == null ? null : evaluateName(nameTemplate, evaluated);
         // skip when the description is not provided (because plugin was updated but configuration not)
         if (StringUtils.isEmpty(descriptionTemplate)) {
+            setEvaluatedNameAndDescription(name, null);
             return;
         }
 
+        if (name != null && CompiledTemplate.usesAnyOf(DISPLAY_NAME, descriptionTemplate)) {
+            // description refers to the new name, so the name is applied first, saves are folded by BuildSaver
+            setEvaluatedNameAndDescription(name, null);
+            name = null;
+            refreshDisplayName(evaluated);
+        }
+        String description = evaluateDescription(descriptionTemplate, evaluated);
+
+        setEvaluatedNameAndDescription(name, description);
+    }
+
+    /**
+     * Drops values of the display name evaluated before it was changed.
+     */
+    private void refreshDisplayName(Map<String, String> evaluated) {
+        evaluated.clear();
+        EnvVars current = environment;
+        if (current != null) {
+            EnvVars refreshed = new EnvVars(current);
+            refreshed.put(EnvironmentVarSetter.buildDisplayNameVar, run.getDisplayName());
+            environment = refreshed;
+        }
+    }
+
+    /**
+     * Same as {@link #setNameAndDescription(String, String)} for values that are already evaluated.
+     *
+     * @param name        name of the build, skipped when {@code null}
+     * @param description description of the build, skipped when {@code null}
+     */
+    public void setEvaluatedNameAndDescription(String name, String description) {
+        update(name, description == null ? null : current -> description);
+    }
+
+    /**
+     * Appends evaluated template to the current description. Concurrent updates of the same build,
+     * for example from parallel branches of the pipeline, are applied one after another so no fragment is lost.
+     *
+     * @param separator separates the fragment from the current description when it is not empty
+     */
+    public void appendDescription(String descriptionTemplate, String separator) {
+        String fragment = evaluateDescription(descriptionTemplate, new ConcurrentHashMap<>());
+        if (fragment != null) {
+            update(null, current -> StringUtils.isEmpty(current)
+                    ? fragment : current + StringUtils.defaultString(separator) + fragment);
+        }
+    }
+
+    /**
+     * Replaces the section of the description identified by the key with evaluated template, other sections and
+     * the description itself are not changed. Empty template removes the section.
+     *
+     * @see DescriptionSectionsAction
+     */
+    public void mergeDescription(String key, String descriptionTemplate) {
+        String section = StringUtils.isEmpty(descriptionTemplate)
+                ? "" : evaluateDescription(descriptionTemplate, new ConcurrentHashMap<>());
+        if (section != null) {
+            listener.getLogger().println("New run description section '" + key + "' is '" + section + "'");
+            persist(() -> DescriptionSectionsAction.setSection(run, key, section));
+        }
+    }
+
+    /**
+     * @param descriptionUpdate computes new description from the current one, {@code null} result keeps it unchanged
+     */
+    private void update(String name, UnaryOperator<String> descriptionUpdate) {
+        if (name != null) {
+            listener.getLogger().println("New run name is '" + name + "'");
+            // variable is not persisted on its own so it is always refreshed
+            setVariableValue(name);
+        }
+
+        AtomicReference<String> description = new AtomicReference<>();
+        AtomicBoolean nameChanged = new AtomicBoolean();
+        persist(() -> {
+            boolean changed = name != null && applyName(name);
+            nameChanged.set(changed);
+            if (descriptionUpdate != null) {
+                description.set(descriptionUpdate.apply(DescriptionFileAction.getDescription(run)));
+                if (description.get() != null) {
+                    changed |= DescriptionFileAction.setDescription(run, description.get());
+                }
+            }
+            return changed;
+        });
+
+        if (nameChanged.get()) {
+            BuildNameIndex.update(run);
+        }
+        if (description.get() != null) {
+            listener.getLogger().println("New run description is '" + description.get() + "'");
+        }
+    }
+
+    private void persist(Change change) {
+        long start = System.nanoTime();
+        RunLock lock = RunLock.acquire(run);
         try {
-            String description = evaluateMacro(descriptionTemplate);
-            listener.getLogger().println("New run description is '" + description + "'");
-            run.setDescription(description);
+            boolean changed;
+            // updates of the same build are serialized but other builds are not blocked,
+            // the lock is held only while the build is changed in the memory
+            synchronized (lock) {
+                // values are updated in memory only, the build is saved later
+                try (BulkChange ignored = new BulkChange(run)) {
+                    changed = change.apply();
+                }
+            }
+            if (changed) {
+                synchronized (lock.files) {
+                    DescriptionFileAction.store(run);
+                }
+                // updates arriving close together are folded into one save
+                BuildSaver.save(run);
+            }
         } catch (IOException e) {
             listener.error(e.getMessage());
+        } finally {
+            lock.release();
+            NamingMetrics.recordPersistence(phase, System.nanoTime() - start);
+        }
+    }
+
+    public void setName(String nameTemplate) {
+        setNameAndDescription(nameTemplate, null);
+    }
+
+    public void setDescription(String descriptionTemplate) {
+        setNameAndDescription(null, descriptionTemplate);
+    }
+
+    private String evaluateName(String nameTemplate, Map<String, String> evaluated) {
+        try {
+            return evaluate(nameTemplate, evaluated);
+        } catch (MacroEvaluationException e) {
+            // should be marked as failure but then many configuration
+            // that work with older version of the plugin will fail
+            listener.getLogger().println("Failed to evaluate name macro:" + e.toString());
+            return null;
+        }
+    }
+
+    private String evaluateDescription(String descriptionTemplate, Map<String, String> evaluated) {
+        try {
+            return evaluate(descriptionTemplate, evaluated);
         } catch (MacroEvaluationException e) {
             // should be marked as failure but then many configuration
             // that work with older version of the plugin will fail
             listener.getLogger().println("Failed to evaluate description macro:" + e.toString());
+            return null;
         }
     }
 
+    /**
+     * @return {@code true} if the name was changed
+     */
+    private boolean applyName(String name) throws IOException {
+        if (Objects.equals(name, run.getDisplayName())) {
+            return false;
+        }
+        run.setDisplayName(name);
+        return true;
+    }
+
     public void setVariable(String nameTemplate) throws MacroEvaluationException {
-        if (run instanceof AbstractBuild abstractBuild) {
-            EnvironmentVarSetter.setVar(abstractBuild, EnvironmentVarSetter.buildDisplayNameVar,
-                    evaluateMacro(nameTemplate), listener.getLogger());
+        setVariableValue(evaluateMacro(nameTemplate));
+    }
+
+    private void setVariableValue(String name) {
+        // the value itself is taken from the display name, the action only has to be attached
+        if (run.getAction(EnvironmentVarSetter.class) == null && StringUtils.isNotBlank(name)) {
+            EnvironmentVarSetter.setVar(run, EnvironmentVarSetter.buildDisplayNameVar, name, listener.getLogger());
         }
     }
 
     public String evaluateMacro(String template) throws MacroEvaluationException {
+        return evaluate(template, new ConcurrentHashMap<>());
+    }
+
+    private String evaluate(String template, Map<String, String> evaluated) throws MacroEvaluationException {
+        if (template == null) {
+            return null;
+        }
+
+        long start = System.nanoTime();
+        try {
+            String result = evaluateWithDeadline(CompiledTemplate.compile(template), evaluated);
+            NamingMetrics.recordEvaluation(phase, System.nanoTime() - start, StringUtils.length(result));
+            return result;
+        } catch (MacroEvaluationException e) {
+            incomplete = true;
+            NamingMetrics.recordEvaluationFailure(phase);
+            throw e;
+        }
+    }
+
+    /**
+     * Evaluates the template in the background and waits at most {@link #getEvaluationTimeout()}. When the time is
+     * up the evaluation is interrupted and the template is rendered with the macros that were already evaluated.
+     * Without the deadline, which is the default, or when all macros are already evaluated, the template is evaluated
+     * by the calling thread.
+     */
+    private String evaluateWithDeadline(CompiledTemplate compiled, Map<String, String> evaluated)
+            throws MacroEvaluationException {
+        long timeout = evaluationTimeout;
+        if (timeout <= 0 || evaluated.keySet().containsAll(compiled.getMacros())) {
+            return compiled.evaluate(this::expandMacro, evaluated);
+        }
+
+        // abandoned evaluation may still be running, so it fills its own map that is merged only when it has finished
+        Map<String, String> own = new ConcurrentHashMap<>(evaluated);
+        Authentication authentication = Jenkins.getAuthentication2();
+        Future<String> future = Computer.threadPoolForRemoting.submit(() -> {
+            try (ACLContext ignored = ACL.as2(authentication)) {
+                return compiled.evaluate(this::expandMacro, own);
+            }
+        });
         try {
-            File workspace = run.getRootDir();
-            return TokenMacro.expandAll(run, new FilePath(workspace), listener, template);
+            String result = future.get(timeout, TimeUnit.SECONDS);
+            evaluated.putAll(own);
+            return result;
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            incomplete = true;
+            NamingMetrics.recordEvaluationTimeout(phase);
+            String partial = compiled.evaluatePartially(own);
+            listener.getLogger().println("Evaluation of '" + compiled.getTemplate() + "' did not finish within "
+                    + timeout + " seconds, using '" + partial + "' instead");
+            return partial;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof MacroEvaluationException macroException) {
+                throw macroException;
+            }
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalArgumentException(e.getCause());
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    private String expandMacro(String macro) throws MacroEvaluationException {
+        try {
+            // same steps as TokenMacro.expandAll() but with the environment computed only once
+            String expanded = getEnvironment().expand(macro.replace("$$", "$$$$"));
+            if (run instanceof AbstractBuild<?, ?> build) {
+                expanded = Util.replaceMacro(expanded, build.getBuildVariableResolver());
+            }
+            // tokens that read files go through FilePath so they are evaluated on the node of the workspace
+            return TokenMacro.expand(run, workspace, listener, expanded);
         } catch (InterruptedException | IOException e) {
             throw new IllegalArgumentException(e);
         }
     }
+
+    private EnvVars getEnvironment() throws IOException, InterruptedException {
+        EnvVars result = environment;
+        if (result == null) {
+            synchronized (this) {
+                result = environment;
+                if (result == null) {
+                    result = run.getEnvironment(listener);
+                    environment = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Lock of updates of one build, shared by all instances that update the build at the same time and dropped when
+     * none of them holds it anymore. Files of the build are written under separate lock, so they are written
+     * one at a time without blocking updates in the memory.
+     */
+    private static final class RunLock {
+
+        private static final Map<String, RunLock> LOCKS = new ConcurrentHashMap<>();
+
+        private final String id;
+        private final Object files = new Object();
+        /** Guarded by {@link #LOCKS}. */
+        private int holders;
+
+        private RunLock(String id) {
+            this.id = id;
+        }
+
+        static RunLock acquire(Run<?, ?> run) {
+            return LOCKS.compute(run.getExternalizableId(), (id, lock) -> {
+                RunLock result = lock != null ? lock : new RunLock(id);
+                result.holders++;
+                return result;
+            });
+        }
+
+        void release() {
+            LOCKS.computeIfPresent(id, (key, lock) -> --lock.holders == 0 ? null : lock);
+        }
+    }
+
+    /**
+     * Change of the build in the memory.
+     */
+    @FunctionalInterface
+    private interface Change {
+        /**
+         * @return {@code true} if the build has changed and needs to be saved
+         */
+        boolean apply() throws IOException;
+    }
 }
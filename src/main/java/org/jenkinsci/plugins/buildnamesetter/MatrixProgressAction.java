@@ -0,0 +1,76 @@
+package org.jenkinsci.plugins.buildnamesetter;
+
+import java.util.Set;
+
+import hudson.EnvVars;
+import hudson.model.AbstractBuild;
+import hudson.model.EnvironmentContributingAction;
+import hudson.model.InvisibleAction;
+import hudson.model.Result;
+
+/**
+ * Counts finished configurations of the matrix build and exposes them as variables,
+ * so the name of the parent build can show the progress without walking all child builds.
+ */
+public class MatrixProgressAction extends InvisibleAction implements EnvironmentContributingAction {
+
+    public static final String TOTAL_VAR = "MATRIX_TOTAL";
+    public static final String COMPLETED_VAR = "MATRIX_COMPLETED";
+    public static final String REMAINING_VAR = "MATRIX_REMAINING";
+    public static final String PASSED_VAR = "MATRIX_PASSED";
+    public static final String UNSTABLE_VAR = "MATRIX_UNSTABLE";
+    public static final String FAILED_VAR = "MATRIX_FAILED";
+    public static final String ABORTED_VAR = "MATRIX_ABORTED";
+
+    public static final Set<String> VARIABLES = Set.of(
+            TOTAL_VAR, COMPLETED_VAR, REMAINING_VAR, PASSED_VAR, UNSTABLE_VAR, FAILED_VAR, ABORTED_VAR);
+
+    private int total;
+    private int passed;
+    private int unstable;
+    private int failed;
+    /** Aborted and not built configurations and those without result, they have neither passed nor failed. */
+    private int aborted;
+
+    public MatrixProgressAction(int total) {
+        this.total = total;
+    }
+
+    /**
+     * Records result of finished configuration.
+     */
+    public synchronized void record(Result result) {
+        if (result == Result.SUCCESS) {
+            passed++;
+        } else if (result == Result.UNSTABLE) {
+            unstable++;
+        } else if (result == Result.FAILURE) {
+            failed++;
+        } else {
+            aborted++;
+        }
+    }
+
+    /**
+     * Called when the matrix build ends, configurations that have not been run are not counted anymore.
+     */
+    public synchronized void finish() {
+        total = getCompleted();
+    }
+
+    public synchronized int getCompleted() {
+        return passed + unstable + failed + aborted;
+    }
+
+    @Override
+    public synchronized void buildEnvVars(AbstractBuild<?, ?> build, EnvVars envVars) {
+        int completed = getCompleted();
+        envVars.put(TOTAL_VAR, String.valueOf(total));
+        envVars.put(COMPLETED_VAR, String.valueOf(completed));
+        envVars.put(REMAINING_VAR, String.valueOf(Math.max(0, total - completed)));
+        envVars.put(PASSED_VAR, String.valueOf(passed));
+        envVars.put(UNSTABLE_VAR, String.valueOf(unstable));
+        envVars.put(FAILED_VAR, String.valueOf(failed));
+        envVars.put(ABORTED_VAR, String.valueOf(aborted));
+    }
+}
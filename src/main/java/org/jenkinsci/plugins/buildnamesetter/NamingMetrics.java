@@ -0,0 +1,191 @@
+package org.jenkinsci.plugins.buildnamesetter;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
+
+/**
+ * Registry of latency and size histograms and failure counters of the plugin.
+ * <p>
+ * Metrics are kept in memory only and are exposed as JSON by {@link NamingMetricsAction}.
+ */
+public final class NamingMetrics {
+
+    public static final String EVALUATION = "evaluation";
+    public static final String EVALUATION_SIZE = "evaluationSize";
+    public static final String EVALUATION_FAILURES = "evaluationFailures";
+    public static final String EVALUATION_TIMEOUTS = "evaluationTimeouts";
+    public static final String PERSISTENCE = "persistence";
+    public static final String REMOTE_READ = "remoteRead";
+    public static final String REMOTE_READ_SIZE = "remoteReadSize";
+    public static final String BUILD_SAVES = "buildSaves";
+
+    /** Upper bounds of latency buckets in microseconds. */
+    private static final long[] LATENCY_BOUNDS = {
+            100, 500, 1_000, 5_000, 10_000, 50_000, 100_000, 500_000, 1_000_000, 5_000_000, 10_000_000};
+    /** Upper bounds of payload buckets in bytes. */
+    private static final long[] SIZE_BOUNDS = {
+            16, 64, 256, 1_024, 4_096, 16_384, 65_536, 262_144, 1_048_576};
+
+    private static final Map<String, Histogram> HISTOGRAMS = new ConcurrentHashMap<>();
+    private static final Map<String, LongAdder> COUNTERS = new ConcurrentHashMap<>();
+
+    private NamingMetrics() {
+    }
+
+    public static void recordEvaluation(NamingPhase phase, long nanos, int length) {
+        latency(EVALUATION, phase).record(TimeUnit.NANOSECONDS.toMicros(nanos));
+        size(EVALUATION_SIZE, phase).record(length);
+    }
+
+    public static void recordEvaluationFailure(NamingPhase phase) {
+        counter(EVALUATION_FAILURES + '.' + phase.getKey()).increment();
+    }
+
+    public static void recordEvaluationTimeout(NamingPhase phase) {
+        counter(EVALUATION_TIMEOUTS + '.' + phase.getKey()).increment();
+    }
+
+    public static void recordPersistence(NamingPhase phase, long nanos) {
+        latency(PERSISTENCE, phase).record(TimeUnit.NANOSECONDS.toMicros(nanos));
+    }
+
+    public static void recordRemoteRead(NamingPhase phase, long nanos, long bytes) {
+        latency(REMOTE_READ, phase).record(TimeUnit.NANOSECONDS.toMicros(nanos));
+        size(REMOTE_READ_SIZE, phase).record(bytes);
+    }
+
+    /**
+     * Counts builds saved to the disk.
+     */
+    public static void recordBuildSave() {
+        counter(BUILD_SAVES).increment();
+    }
+
+    /**
+     * @return histogram with given name and phase, for example {@code evaluation.start}
+     */
+    public static Histogram getHistogram(String name, NamingPhase phase) {
+        return HISTOGRAMS.get(name + '.' + phase.getKey());
+    }
+
+    public static long getCounter(String name) {
+        LongAdder counter = COUNTERS.get(name);
+        return counter == null ? 0 : counter.sum();
+    }
+
+    public static void reset() {
+        HISTOGRAMS.clear();
+        COUNTERS.clear();
+    }
+
+    public static JSONObject toJson() {
+        JSONObject histograms = new JSONObject();
+        for (Map.Entry<String, Histogram> entry : new TreeMap<>(HISTOGRAMS).entrySet()) {
+            histograms.put(entry.getKey(), entry.getValue().toJson());
+        }
+        JSONObject counters = new JSONObject();
+        for (Map.Entry<String, LongAdder> entry : new TreeMap<>(COUNTERS).entrySet()) {
+            counters.put(entry.getKey(), entry.getValue().sum());
+        }
+
+        JSONObject json = new JSONObject();
+        json.put("histograms", histograms);
+        json.put("counters", counters);
+        return json;
+    }
+
+    private static Histogram latency(String name, NamingPhase phase) {
+        return HISTOGRAMS.computeIfAbsent(name + '.' + phase.getKey(), key -> new Histogram("us", LATENCY_BOUNDS));
+    }
+
+    private static Histogram size(String name, NamingPhase phase) {
+        return HISTOGRAMS.computeIfAbsent(name + '.' + phase.getKey(), key -> new Histogram("bytes", SIZE_BOUNDS));
+    }
+
+    private static LongAdder counter(String name) {
+        return COUNTERS.computeIfAbsent(name, key -> new LongAdder());
+    }
+
+    /**
+     * Histogram with fixed buckets, values greater than the last bound fall into the overflow bucket.
+     */
+    public static final class Histogram {
+        private final String unit;
+        private final long[] bounds;
+        private final LongAdder[] buckets;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder total = new LongAdder();
+        private final LongAccumulator max = new LongAccumulator(Long::max, 0);
+
+        Histogram(String unit, long[] bounds) {
+            this.unit = unit;
+            this.bounds = bounds;
+            this.buckets = new LongAdder[bounds.length + 1];
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        void record(long value) {
+            int bucket = 0;
+            while (bucket < bounds.length && value > bounds[bucket]) {
+                bucket++;
+            }
+            buckets[bucket].increment();
+            count.increment();
+            total.add(value);
+            max.accumulate(value);
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        public long getTotal() {
+            return total.sum();
+        }
+
+        /**
+         * @param quantile value between 0 and 1
+         * @return upper bound of the bucket with given quantile, maximum recorded value for the overflow bucket
+         */
+        public long getPercentile(double quantile) {
+            long threshold = (long) Math.ceil(getCount() * quantile);
+            long seen = 0;
+            for (int i = 0; i < bounds.length; i++) {
+                seen += buckets[i].sum();
+                if (seen >= threshold && seen > 0) {
+                    return Math.min(bounds[i], max.get());
+                }
+            }
+            return max.get();
+        }
+
+        JSONObject toJson() {
+            JSONArray histogram = new JSONArray();
+            for (int i = 0; i < buckets.length; i++) {
+                JSONObject bucket = new JSONObject();
+                bucket.put("le", i < bounds.length ? String.valueOf(bounds[i]) : "+Inf");
+                bucket.put("count", buckets[i].sum());
+                histogram.add(bucket);
+            }
+
+            JSONObject json = new JSONObject();
+            json.put("unit", unit);
+            json.put("count", getCount());
+            json.put("total", getTotal());
+            json.put("max", max.get());
+            json.put("p50", getPercentile(0.5));
+            json.put("p99", getPercentile(0.99));
+            json.put("buckets", histogram);
+            return json;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package org.jenkinsci.plugins.buildnamesetter;
+
+import java.io.IOException;
+
+import hudson.Extension;
+import hudson.model.RootAction;
+import jenkins.model.Jenkins;
+import org.kohsuke.stapler.StaplerResponse2;
+import org.kohsuke.stapler.verb.GET;
+
+/**
+ * Exposes {@link NamingMetrics} as JSON at {@code /build-name-setter-metrics/}.
+ */
+@Extension
+public class NamingMetricsAction implements RootAction {
+
+    @GET
+    public void doIndex(StaplerResponse2 response) throws IOException {
+        Jenkins.get().checkPermission(Jenkins.SYSTEM_READ);
+
+        response.setContentType("application/json;charset=UTF-8");
+        response.getWriter().print(NamingMetrics.toJson().toString());
+    }
+
+    @Override
+    public String getIconFileName() {
+        return null;
+    }
+
+    @Override
+    public String getDisplayName() {
+        return null;
+    }
+
+    @Override
+    public String getUrlName() {
+        return "build-name-setter-metrics";
+    }
+}
@@ -0,0 +1,23 @@
+package org.jenkinsci.plugins.buildnamesetter;
+
+import java.util.Locale;
+
+/**
+ * Point of the build where the name and description are evaluated.
+ */
+public enum NamingPhase {
+    /** {@link BuildNameSetter} at the start of the build. */
+    START,
+    /** {@link BuildNameSetter} at the end of the build. */
+    END,
+    /** Build step, pipeline step or other update during the build. */
+    STEP,
+    /** Parent of the multi-configuration build. */
+    MATRIX,
+    /** Templates applied again to finished builds by {@link ReapplyNamesAction}. */
+    REAPPLY;
+
+    public String getKey() {
+        return name().toLowerCase(Locale.ENGLISH);
+    }
+}
@@ -0,0 +1,38 @@
+package org.jenkinsci.plugins.buildnamesetter;
+
+import hudson.matrix.MatrixRun;
+import hudson.model.AbstractBuild;
+import hudson.model.InvisibleAction;
+
+/**
+ * Name and description evaluated once by the matrix build and inherited by its configurations.
+ */
+public class ParentNameAction extends InvisibleAction {
+
+    private final String name;
+    private final String description;
+
+    public ParentNameAction(String name, String description) {
+        this.name = name;
+        this.description = description;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * @return values inherited from the parent build or {@code null} when given build is not matrix configuration
+     *         or parent did not provide them
+     */
+    public static ParentNameAction of(AbstractBuild<?, ?> build) {
+        if (build instanceof MatrixRun matrixRun && matrixRun.getParentBuild() != null) {
+            return matrixRun.getParentBuild().getAction(ParentNameAction.class);
+        }
+        return null;
+    }
+}
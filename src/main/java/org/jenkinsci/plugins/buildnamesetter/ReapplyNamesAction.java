@@ -0,0 +1,335 @@
+package org.jenkinsci.plugins.buildnamesetter;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.FilePath;
+import hudson.XmlFile;
+import hudson.console.AnnotatedLargeText;
+import hudson.model.AbstractProject;
+import hudson.model.Action;
+import hudson.model.BuildableItemWithBuildWrappers;
+import hudson.model.Item;
+import hudson.model.Run;
+import hudson.security.ACL;
+import hudson.security.ACLContext;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import hudson.util.StreamTaskListener;
+import jenkins.model.Jenkins;
+import jenkins.model.TransientActionFactory;
+import jenkins.util.SystemProperties;
+import org.kohsuke.stapler.HttpResponse;
+import org.kohsuke.stapler.HttpResponses;
+import org.kohsuke.stapler.QueryParameter;
+import org.kohsuke.stapler.StaplerRequest2;
+import org.kohsuke.stapler.StaplerResponse2;
+import org.kohsuke.stapler.interceptor.RequirePOST;
+import org.springframework.security.core.Authentication;
+
+/**
+ * Evaluates templates of {@link BuildNameSetter} again for finished builds of the job, for example when the template
+ * has been changed.
+ * <p>
+ * Builds are processed by a bounded pool of workers one by one, so loaded builds are not kept in the memory,
+ * saves are throttled and the progress is stored in the job directory so the work can be resumed after restart.
+ */
+public class ReapplyNamesAction implements Action {
+
+    private static final Logger LOGGER = Logger.getLogger(ReapplyNamesAction.class.getName());
+
+    /** Number of builds processed in parallel by all jobs. */
+    static final int WORKERS = SystemProperties.getInteger(ReapplyNamesAction.class.getName() + ".workers", 2);
+    /** Maximum number of builds saved per second by all jobs, {@code 0} means no limit. */
+    static final int SAVES_PER_SECOND = SystemProperties.getInteger(ReapplyNamesAction.class.getName() + ".savesPerSecond", 20);
+
+    private static final int CHECKPOINT_INTERVAL = 50;
+
+    private static final ExecutorService POOL = Executors.newFixedThreadPool(WORKERS,
+            new NamingThreadFactory(new DaemonThreadFactory(), ReapplyNamesAction.class.getSimpleName()));
+
+    private static final Map<String, Task> TASKS = new ConcurrentHashMap<>();
+
+    private static final Object THROTTLE_LOCK = new Object();
+    private static long nextSave;
+
+    private final AbstractProject<?, ?> project;
+
+    public ReapplyNamesAction(AbstractProject<?, ?> project) {
+        this.project = project;
+    }
+
+    public AbstractProject<?, ?> getProject() {
+        return project;
+    }
+
+    @Override
+    public String getIconFileName() {
+        return project.hasPermission(Item.CONFIGURE) ? "notepad.png" : null;
+    }
+
+    @Override
+    public String getDisplayName() {
+        return "Re-apply Build Names";
+    }
+
+    @Override
+    public String getUrlName() {
+        return "reapply-build-names";
+    }
+
+    public boolean isRunning() {
+        return TASKS.containsKey(project.getFullName());
+    }
+
+    /**
+     * @return {@code true} when previous run was not finished, for example because Jenkins was restarted
+     */
+    public boolean isResumable() {
+        return !isRunning() && getStateFile().exists();
+    }
+
+    public boolean isLogAvailable() {
+        return getLogFile().exists();
+    }
+
+    @RequirePOST
+    public HttpResponse doReapply(@QueryParameter int from, @QueryParameter int to) throws IOException {
+        checkPermissions();
+        if (from < 1 || to < from) {
+            return HttpResponses.errorWithoutStack(400, "Invalid range of builds: " + from + " - " + to);
+        }
+
+        start(new Progress(from, to, from));
+        return HttpResponses.redirectToDot();
+    }
+
+    @RequirePOST
+    public HttpResponse doResume() throws IOException {
+        checkPermissions();
+        XmlFile stateFile = new XmlFile(Jenkins.XSTREAM2, getStateFile());
+        if (!stateFile.exists()) {
+            return HttpResponses.errorWithoutStack(400, "There is nothing to resume");
+        }
+
+        start((Progress) stateFile.read());
+        return HttpResponses.redirectToDot();
+    }
+
+    public void doProgressiveLog(StaplerRequest2 request, StaplerResponse2 response) throws IOException {
+        checkPermissions();
+        new AnnotatedLargeText<>(getLogFile(), StandardCharsets.UTF_8, !isRunning(), this)
+                .doProgressText(request, response);
+    }
+
+    /**
+     * Re-applying names updates finished builds, so it requires the same permission as editing them.
+     */
+    private void checkPermissions() {
+        project.checkPermission(Item.CONFIGURE);
+        project.checkPermission(Run.UPDATE);
+    }
+
+    private void start(Progress progress) throws IOException {
+        BuildNameSetter setter = getSetter(project);
+        if (setter == null) {
+            throw HttpResponses.errorWithoutStack(400, "Build name setter is not configured for " + project.getFullName());
+        }
+
+        Task task = new Task(project, setter, progress, getStateFile(), getLogFile(), Jenkins.getAuthentication2());
+        if (TASKS.putIfAbsent(project.getFullName(), task) != null) {
+            throw HttpResponses.errorWithoutStack(409, "Build names are already being re-applied");
+        }
+        task.start();
+    }
+
+    private File getStateFile() {
+        return new File(project.getRootDir(), "build-name-reapply.xml");
+    }
+
+    private File getLogFile() {
+        return new File(project.getRootDir(), "build-name-reapply.log");
+    }
+
+    private static BuildNameSetter getSetter(AbstractProject<?, ?> project) {
+        if (project instanceof BuildableItemWithBuildWrappers wrappers) {
+            return wrappers.getBuildWrappersList().get(BuildNameSetter.class);
+        }
+        return null;
+    }
+
+    /**
+     * Waits so all jobs together do not save more than {@link #SAVES_PER_SECOND} builds per second.
+     */
+    private static void throttle() throws InterruptedException {
+        if (SAVES_PER_SECOND <= 0) {
+            return;
+        }
+
+        long wait;
+        synchronized (THROTTLE_LOCK) {
+            long now = System.nanoTime();
+            long slot = Math.max(now, nextSave);
+            nextSave = slot + TimeUnit.SECONDS.toNanos(1) / SAVES_PER_SECOND;
+            wait = slot - now;
+        }
+        if (wait > 0) {
+            TimeUnit.NANOSECONDS.sleep(wait);
+        }
+    }
+
+    /**
+     * Persisted progress, {@code next} is the lowest build number that has not been processed yet.
+     */
+    static final class Progress {
+        private final int from;
+        private final int to;
+        private final int next;
+
+        Progress(int from, int to, int next) {
+            this.from = from;
+            this.to = to;
+            this.next = next;
+        }
+    }
+
+    private static final class Task {
+        private final AbstractProject<?, ?> project;
+        private final BuildNameSetter setter;
+        private final Progress progress;
+        private final XmlFile stateFile;
+        private final File logFile;
+        /** Templates are evaluated as the user who started re-applying. */
+        private final Authentication authentication;
+
+        private final AtomicInteger cursor;
+        private final NavigableSet<Integer> inProgress = new ConcurrentSkipListSet<>();
+        private final AtomicInteger processed = new AtomicInteger();
+        private final AtomicInteger activeWorkers = new AtomicInteger();
+        private StreamTaskListener listener;
+
+        Task(AbstractProject<?, ?> project, BuildNameSetter setter, Progress progress, File stateFile, File logFile,
+             Authentication authentication) {
+            this.project = project;
+            this.setter = setter;
+            this.progress = progress;
+            this.stateFile = new XmlFile(Jenkins.XSTREAM2, stateFile);
+            this.logFile = logFile;
+            this.authentication = authentication;
+            this.cursor = new AtomicInteger(progress.next);
+        }
+
+        void start() throws IOException {
+            try {
+                // resumed run continues in the same log
+                listener = new StreamTaskListener(logFile, progress.next != progress.from, StandardCharsets.UTF_8);
+                listener.getLogger().println("Re-applying build names to builds " + progress.next + " - " + progress.to);
+                checkpoint();
+            } catch (IOException e) {
+                TASKS.remove(project.getFullName());
+                throw e;
+            }
+
+            activeWorkers.set(WORKERS);
+            for (int i = 0; i < WORKERS; i++) {
+                POOL.submit(this::work);
+            }
+        }
+
+        private void work() {
+            try (ACLContext ignored = ACL.as2(authentication)) {
+                int number;
+                while ((number = cursor.getAndIncrement()) <= progress.to) {
+                    inProgress.add(number);
+                    try {
+                        process(number);
+                    } finally {
+                        inProgress.remove(number);
+                    }
+                    if (processed.incrementAndGet() % CHECKPOINT_INTERVAL == 0) {
+                        checkpoint();
+                    }
+                }
+            } catch (InterruptedException e) {
+                listener.getLogger().println("Interrupted, use resume to continue");
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Failed to re-apply build names for " + project.getFullName(), e);
+                listener.error("Failed: " + e);
+            } finally {
+                if (activeWorkers.decrementAndGet() == 0) {
+                    finish();
+                }
+            }
+        }
+
+        private void process(int number) throws InterruptedException {
+            Run<?, ?> build = project.getBuildByNumber(number);
+            if (build == null || build.isBuilding()) {
+                return;
+            }
+
+            throttle();
+            listener.getLogger().println("Processing " + build.getFullDisplayName());
+            // workspace of old build is not available anymore
+            Executor executor = new Executor(build, listener, new FilePath(build.getRootDir()), NamingPhase.REAPPLY);
+            executor.setNameAndDescription(setter.getTemplate(), setter.getDescriptionTemplate());
+        }
+
+        private synchronized void checkpoint() {
+            int next = inProgress.isEmpty() ? Math.min(cursor.get(), progress.to + 1) : inProgress.first();
+            try {
+                stateFile.write(new Progress(progress.from, progress.to, next));
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Failed to save progress of " + project.getFullName(), e);
+            }
+        }
+
+        private void finish() {
+            try {
+                if (cursor.get() > progress.to) {
+                    stateFile.delete();
+                    listener.getLogger().println("Finished, processed " + processed.get() + " builds");
+                } else {
+                    checkpoint();
+                }
+            } finally {
+                listener.close();
+                TASKS.remove(project.getFullName());
+            }
+        }
+    }
+
+    @Extension
+    public static class Factory extends TransientActionFactory<AbstractProject> {
+
+        @Override
+        public Class<AbstractProject> type() {
+            return AbstractProject.class;
+        }
+
+        @NonNull
+        @Override
+        public Collection<? extends Action> createFor(@NonNull AbstractProject target) {
+            if (getSetter(target) == null) {
+                return Collections.emptyList();
+            }
+            return Collections.singletonList(new ReapplyNamesAction(target));
+        }
+    }
+}
@@ -1,10 +1,17 @@
 package org.jenkinsci.plugins.buildnameupdater;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -12,23 +19,30 @@ import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import hudson.Extension;
 import hudson.FilePath;
 import hudson.Launcher;
+import hudson.Util;
 import hudson.model.AbstractBuild;
 import hudson.model.AbstractProject;
 import hudson.model.BuildListener;
+import hudson.model.Project;
 import hudson.remoting.VirtualChannel;
 import hudson.tasks.BuildStepDescriptor;
 import hudson.tasks.Builder;
 import hudson.util.FormValidation;
+import hudson.util.ListBoxModel;
 import jenkins.MasterToSlaveFileCallable;
+import jenkins.util.SystemProperties;
 import org.apache.commons.lang3.StringUtils;
 import org.jenkinsci.plugins.buildnamesetter.Executor;
+import org.jenkinsci.plugins.buildnamesetter.NamingMetrics;
+import org.jenkinsci.plugins.buildnamesetter.NamingPhase;
 import org.jenkinsci.plugins.tokenmacro.MacroEvaluationException;
 import org.jenkinsci.plugins.tokenmacro.TokenMacro;
 import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
 import org.kohsuke.stapler.QueryParameter;
 
 /**
- * This plugin replace the build name with the first line from a file on a slave.
+ * This plugin replace the build name with the first (or selected) line from a file on a slave.
  *
  * @author Lev Mishin
  */
@@ -39,9 +53,19 @@ public class BuildNameUpdater extends Builder {
     private final boolean fromFile;
     private final boolean fromMacro;
     private final boolean macroFirst;
+    private String descriptionFile;
+    private boolean prefetch;
+    private int lineNumber = 1;
+    private ValueExtractor extractor;
+    private String expression;
 
     private static final Logger LOGGER = Logger.getLogger(BuildNameUpdater.class.getName());
 
+    /**
+     * Longer lines are truncated so huge files without new lines are not transferred from the agent.
+     */
+    static final int MAX_LINE_BYTES = SystemProperties.getInteger(BuildNameUpdater.class.getName() + ".maxLineBytes", 4096);
+
     // Fields in config.jelly must match the parameter names in the "DataBoundConstructor"
     @DataBoundConstructor
     public BuildNameUpdater(boolean fromFile, String buildName, boolean fromMacro, String macroTemplate, boolean macroFirst) {
@@ -77,12 +101,105 @@ public class BuildNameUpdater extends Builder {
         return macroTemplate;
     }
 
+    @SuppressWarnings("unused")
+    public String getDescriptionFile() {
+        return descriptionFile;
+    }
+
+    @DataBoundSetter
+    public void setDescriptionFile(String descriptionFile) {
+        this.descriptionFile = descriptionFile;
+    }
+
+    @SuppressWarnings("unused")
+    public boolean getPrefetch() {
+        return prefetch;
+    }
+
+    @DataBoundSetter
+    public void setPrefetch(boolean prefetch) {
+        this.prefetch = prefetch;
+    }
+
+    @SuppressWarnings("unused")
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * @param lineNumber line of the file that is used, {@code 1} is the first line, {@code -1} the last line
+     */
+    @DataBoundSetter
+    public void setLineNumber(int lineNumber) {
+        // 0 is not valid line number and comes from configuration saved by older version
+        this.lineNumber = lineNumber == 0 ? 1 : lineNumber;
+    }
+
+    public ValueExtractor getExtractor() {
+        return extractor != null ? extractor : ValueExtractor.LINE;
+    }
+
+    /**
+     * @param extractor how the build name is extracted from the file
+     */
+    @DataBoundSetter
+    public void setExtractor(ValueExtractor extractor) {
+        this.extractor = extractor == ValueExtractor.LINE ? null : extractor;
+    }
+
+    @SuppressWarnings("unused")
+    public String getExpression() {
+        return expression;
+    }
+
+    /**
+     * @param expression path of the XML element, JSON pointer or property key, depending on the extractor
+     */
+    @DataBoundSetter
+    public void setExpression(String expression) {
+        this.expression = Util.fixEmptyAndTrim(expression);
+    }
+
+    protected Object readResolve() {
+        if (lineNumber == 0) {
+            lineNumber = 1;
+        }
+        return this;
+    }
+
+    /**
+     * Starts reading the files in the background right after the checkout so the build step
+     * does not have to wait for the agent when it is executed.
+     */
+    @Override
+    public boolean prebuild(AbstractBuild<?, ?> build, BuildListener listener) {
+        if (fromFile && prefetch) {
+            List<String> paths = getFilePaths();
+            FilePath workspace = build.getWorkspace();
+            if (!paths.isEmpty() && workspace != null) {
+                try {
+                    // files generated by the build do not exist yet, they are found missing on the agent
+                    // and read by the build step
+                    PrefetchedFiles.start(build, paths, workspace.actAsync(createCallable(build, paths)));
+                } catch (IOException e) {
+                    LOGGER.log(Level.WARNING, "Failed to prefetch files: ", e);
+                } catch (InterruptedException e) {
+                    LOGGER.log(Level.WARNING, "Prefetching files was interrupted: ", e);
+                }
+            }
+        }
+        return true;
+    }
+
     @Override
     public boolean perform(AbstractBuild build, Launcher launcher, BuildListener listener) {
         String buildNameToSet = "";
+        String descriptionToSet = "";
 
         if (fromFile) {
-            buildNameToSet = readFromFile(build, listener, buildName);
+            Map<String, String> contents = readFromFiles(build, listener);
+            buildNameToSet = StringUtils.defaultString(contents.get(buildName));
+            descriptionToSet = StringUtils.defaultString(contents.get(descriptionFile));
         }
 
         if (fromMacro) {
@@ -93,9 +210,9 @@ public class BuildNameUpdater extends Builder {
             buildNameToSet = macroFirst ? evaluatedMacro + buildNameToSet : buildNameToSet + evaluatedMacro;
         }
 
-        if (StringUtils.isNotBlank(buildNameToSet)) {
+        if (StringUtils.isNotBlank(buildNameToSet) || StringUtils.isNotBlank(descriptionToSet)) {
             Executor executor = new Executor(build, listener);
-            executor.setName(buildNameToSet);
+            executor.setNameAndDescription(StringUtils.defaultIfBlank(buildNameToSet, null), descriptionToSet);
         }
 
         return true;
@@ -118,33 +235,149 @@ public class BuildNameUpdater extends Builder {
         return result;
     }
 
-    private String readFromFile(AbstractBuild build, BuildListener listener, String filePath) {
-        String version = "";
+    private List<String> getFilePaths() {
+        List<String> paths = new ArrayList<>();
+        if (StringUtils.isNotBlank(buildName)) {
+            paths.add(buildName);
+        }
+        if (StringUtils.isNotBlank(descriptionFile) && !descriptionFile.equals(buildName)) {
+            paths.add(descriptionFile);
+        }
+        return paths;
+    }
 
-        if (StringUtils.isBlank(filePath)) {
+    /**
+     * Reads all configured files with one call to the agent.
+     *
+     * @return first line of every file mapped by configured path
+     */
+    private Map<String, String> readFromFiles(AbstractBuild build, BuildListener listener) {
+        List<String> paths = getFilePaths();
+        if (paths.isEmpty()) {
             listener.getLogger().println("File path is empty.");
-            return "";
+            return Collections.emptyMap();
         }
 
         FilePath workspace = build.getWorkspace();
         if (workspace == null) {
             listener.getLogger().println("Workspace is empty.");
-            return "";
+            return Collections.emptyMap();
         }
-        FilePath fp = new FilePath(workspace, filePath);
-
-        listener.getLogger().println("Getting version from file: " + fp);
 
+        Map<String, FileContent> read = new LinkedHashMap<>();
+        long start = System.nanoTime();
         try {
-            version = fp.act(new FileCallable());
+            for (String path : paths) {
+                listener.getLogger().println("Getting version from file: " + new FilePath(workspace, path));
+            }
+            read.putAll(usePrefetched(build, paths, listener));
+            List<String> remaining = new ArrayList<>(paths);
+            remaining.removeAll(read.keySet());
+            if (!remaining.isEmpty()) {
+                // files read before are only checked, the ones changed since then are read again
+                read.putAll(workspace.act(createCallable(build, remaining)));
+            }
         } catch (IOException e) {
             LOGGER.log(Level.WARNING, "Failed to read file: ", e);
         } catch (InterruptedException e) {
             LOGGER.log(Level.WARNING, "Getting name from file was interrupted: ", e);
         }
+        NamingMetrics.recordRemoteRead(NamingPhase.STEP, System.nanoTime() - start,
+                read.values().stream().mapToLong(content -> StringUtils.length(content.value())).sum());
+
+        Map<String, FileContent> cache = FileReadCache.of(build);
+        Map<String, String> contents = new LinkedHashMap<>();
+        for (Map.Entry<String, FileContent> entry : read.entrySet()) {
+            String key = getCacheKey(entry.getKey());
+            FileContent content = entry.getValue();
+            FileContent cached = cache.get(key);
+            if (content.unchanged() && cached != null) {
+                listener.getLogger().println("File " + entry.getKey() + " has not changed");
+                content = cached;
+            } else if (content.cacheable()) {
+                cache.put(key, content);
+            } else {
+                cache.remove(key);
+            }
+            contents.put(entry.getKey(), StringUtils.defaultString(content.value()));
+            listener.getLogger().println("Loaded version from " + entry.getKey() + " is " + content.value());
+        }
+        return contents;
+    }
+
+    /**
+     * Adds prefetched files to {@link FileReadCache}, when prefetching failed the files are simply read again.
+     * Files are used as they were prefetched when this is the first build step, otherwise previous build steps
+     * might have changed them so they are checked on the agent again.
+     *
+     * @return prefetched files that do not have to be checked again
+     */
+    private Map<String, FileContent> usePrefetched(AbstractBuild<?, ?> build, List<String> paths,
+                                                   BuildListener listener) throws InterruptedException {
+        Future<Map<String, FileContent>> prefetched = PrefetchedFiles.take(build, paths);
+        if (prefetched == null) {
+            return Collections.emptyMap();
+        }
+
+        Map<String, FileContent> contents;
+        try {
+            contents = prefetched.get();
+        } catch (ExecutionException | CancellationException e) {
+            LOGGER.log(Level.FINE, "Failed to prefetch files: ", e);
+            listener.getLogger().println("Prefetching files failed, reading them again");
+            return Collections.emptyMap();
+        }
+
+        Map<String, FileContent> cache = FileReadCache.of(build);
+        contents.forEach((path, content) -> {
+            if (content.cacheable() && !content.unchanged()) {
+                cache.put(getCacheKey(path), content);
+            }
+        });
+        if (!isFirstBuildStep(build)) {
+            listener.getLogger().println("Checking prefetched files: " + paths);
+            return Collections.emptyMap();
+        }
+
+        listener.getLogger().println("Using prefetched files: " + paths);
+        Map<String, FileContent> found = new LinkedHashMap<>();
+        contents.forEach((path, content) -> {
+            // files that did not exist after the checkout are looked for again
+            if (content.found()) {
+                found.put(path, content);
+            }
+        });
+        return found;
+    }
+
+    private boolean isFirstBuildStep(AbstractBuild<?, ?> build) {
+        return build.getProject() instanceof Project<?, ?> project
+                && !project.getBuilders().isEmpty() && project.getBuilders().get(0) == this;
+    }
+
+    /**
+     * @return files read before by the build with the same settings, so they are not read again when not changed
+     */
+    private FilesCallable createCallable(AbstractBuild<?, ?> build, List<String> paths) {
+        Map<String, FileContent> cache = FileReadCache.of(build);
+        Map<String, FileContent> known = new HashMap<>();
+        for (String path : paths) {
+            FileContent cached = cache.get(getCacheKey(path));
+            if (cached != null) {
+                known.put(path, cached);
+            }
+        }
+        // description file is always read by lines
+        return new FilesCallable(paths, lineNumber, buildName, getExtractor(), expression, known);
+    }
 
-        listener.getLogger().println("Loaded version is " + version);
-        return StringUtils.defaultString(version);
+    /**
+     * @return key that identifies the file and the way the value is extracted from it
+     */
+    private String getCacheKey(String path) {
+        ValueExtractor fileExtractor = path.equals(buildName) ? getExtractor() : ValueExtractor.LINE;
+        return String.join("\n", path, fileExtractor.name(), StringUtils.defaultString(expression),
+                String.valueOf(lineNumber));
     }
 
     @Override
@@ -152,21 +385,84 @@ public class BuildNameUpdater extends Builder {
         return (DescriptorImpl) super.getDescriptor();
     }
 
-    private static class FileCallable extends MasterToSlaveFileCallable<String> {
+    /**
+     * Reads selected line of every given file in one call, paths are relative to the workspace.
+     * Value of one of the files may be extracted by {@link ValueExtractor} instead.
+     * Files with the same size and modification time as the known ones are not read again.
+     */
+    static class FilesCallable extends MasterToSlaveFileCallable<Map<String, FileContent>> {
         private static final long serialVersionUID = 1L;
 
+        /**
+         * Files modified within this time are not cached, file systems store modification time with 1 or 2 seconds
+         * resolution so the following change of the file might keep the same modification time.
+         */
+        private static final long MODIFICATION_RESOLUTION = 2000;
+
+        private final List<String> paths;
+        private final int lineNumber;
+        private final int maxLineBytes;
+        private final String extractedPath;
+        private final ValueExtractor extractor;
+        private final String expression;
+        private final Map<String, FileContent> known;
+
+        FilesCallable(List<String> paths, int lineNumber) {
+            this(paths, lineNumber, null, ValueExtractor.LINE, null, Collections.emptyMap());
+        }
+
+        FilesCallable(List<String> paths, int lineNumber, String extractedPath, ValueExtractor extractor,
+                      String expression, Map<String, FileContent> known) {
+            this.paths = new ArrayList<>(paths);
+            this.lineNumber = lineNumber;
+            // evaluated on the controller so the limit does not depend on agent configuration
+            this.maxLineBytes = MAX_LINE_BYTES;
+            this.extractedPath = extractedPath;
+            this.extractor = extractor;
+            this.expression = expression;
+            // only the stat is needed on the agent, values stay on the controller
+            this.known = new HashMap<>();
+            known.forEach((path, content) -> this.known.put(path, FileContent.unchanged(content.size(), content.modified())));
+        }
+
         @Override
-        public String invoke(File file, VirtualChannel channel) throws IOException {
-            if (file.getAbsoluteFile().exists()) {
-                LOGGER.log(Level.INFO, "File is found, reading...");
-                try (BufferedReader br = new BufferedReader(
-                        new FileReader(file.getAbsoluteFile(), StandardCharsets.UTF_8))) {
-                    return br.readLine();
+        public Map<String, FileContent> invoke(File workspace, VirtualChannel channel) throws IOException {
+            Map<String, FileContent> contents = new LinkedHashMap<>();
+            for (String path : paths) {
+                File file = new File(path);
+                if (!file.isAbsolute()) {
+                    file = new File(workspace, path);
                 }
-            } else {
+                contents.put(path, read(file.getAbsoluteFile(), path));
+            }
+            return contents;
+        }
+
+        private FileContent read(File file, String path) throws IOException {
+            if (!file.exists()) {
                 LOGGER.log(Level.WARNING, "File was not found.");
-                return "";
+                return FileContent.missing();
+            }
+
+            long size = file.length();
+            long modified = file.lastModified();
+            FileContent previous = known.get(path);
+            if (previous != null && previous.sameStat(size, modified)) {
+                return FileContent.unchanged(size, modified);
             }
+
+            LOGGER.log(Level.INFO, "File is found, reading...");
+            ValueExtractor fileExtractor = path.equals(extractedPath) ? extractor : ValueExtractor.LINE;
+            String value;
+            try {
+                value = StringUtils.defaultString(fileExtractor.extract(file, expression, lineNumber, maxLineBytes));
+            } catch (IOException e) {
+                // the file is broken or does not match the expression, other files are still used
+                LOGGER.log(Level.WARNING, "Failed to extract value from " + file + ", it is skipped", e);
+                value = "";
+            }
+            boolean cacheable = System.currentTimeMillis() - modified > MODIFICATION_RESOLUTION;
+            return new FileContent(value, size, modified, cacheable, false);
         }
     }
 
@@ -183,6 +479,27 @@ public class BuildNameUpdater extends Builder {
             return FormValidation.ok();
         }
 
+        @SuppressWarnings("unused")
+        public FormValidation doCheckExpression(@QueryParameter String value, @QueryParameter String extractor) {
+            try {
+                ValueExtractor selected = StringUtils.isEmpty(extractor)
+                        ? ValueExtractor.LINE : ValueExtractor.valueOf(extractor);
+                selected.validate(value);
+                return FormValidation.ok();
+            } catch (IllegalArgumentException e) {
+                return FormValidation.error(e.getMessage());
+            }
+        }
+
+        @SuppressWarnings("unused")
+        public ListBoxModel doFillExtractorItems() {
+            ListBoxModel items = new ListBoxModel();
+            for (ValueExtractor extractor : ValueExtractor.values()) {
+                items.add(extractor.getDisplayName(), extractor.name());
+            }
+            return items;
+        }
+
         public boolean isApplicable(Class<? extends AbstractProject> jobType) {
             return true;
         }
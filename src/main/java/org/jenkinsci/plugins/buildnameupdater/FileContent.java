@@ -0,0 +1,35 @@
+package org.jenkinsci.plugins.buildnameupdater;
+
+import java.io.Serializable;
+
+/**
+ * Value read from the file on the agent together with the size and modification time of the file.
+ *
+ * @param value     value read from the file, {@code null} when {@code unchanged}
+ * @param cacheable {@code false} when the file was modified so recently that another change within the
+ *                  resolution of the modification time could not be detected
+ * @param unchanged {@code true} when the file has the same size and modification time as the known one
+ *                  so it was not read again
+ */
+record FileContent(String value, long size, long modified, boolean cacheable, boolean unchanged)
+        implements Serializable {
+
+    static FileContent missing() {
+        return new FileContent("", -1, -1, false, false);
+    }
+
+    static FileContent unchanged(long size, long modified) {
+        return new FileContent(null, size, modified, true, true);
+    }
+
+    /**
+     * @return {@code false} when the file did not exist
+     */
+    boolean found() {
+        return size >= 0;
+    }
+
+    boolean sameStat(long otherSize, long otherModified) {
+        return size == otherSize && modified == otherModified;
+    }
+}
@@ -0,0 +1,51 @@
+package org.jenkinsci.plugins.buildnameupdater;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.model.listeners.RunListener;
+
+/**
+ * Values read by {@link BuildNameUpdater} during the build, so a file that has not changed since the previous
+ * step is only checked on the agent but not read again. Values are dropped when the build completes or is deleted,
+ * builds are weakly referenced so builds that never complete are not kept in the memory.
+ */
+public final class FileReadCache {
+
+    private static final Map<Run<?, ?>, Map<String, FileContent>> CACHES =
+            Collections.synchronizedMap(new WeakHashMap<>());
+
+    private FileReadCache() {
+    }
+
+    /**
+     * @return values read by the build, keyed by path and the way the value was extracted
+     */
+    static Map<String, FileContent> of(Run<?, ?> run) {
+        return CACHES.computeIfAbsent(run, r -> new ConcurrentHashMap<>());
+    }
+
+    static int size() {
+        return CACHES.size();
+    }
+
+    @Extension
+    public static final class DropOnCompletion extends RunListener<Run<?, ?>> {
+
+        @Override
+        public void onCompleted(Run<?, ?> run, @NonNull TaskListener listener) {
+            CACHES.remove(run);
+        }
+
+        @Override
+        public void onDeleted(Run<?, ?> run) {
+            CACHES.remove(run);
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package org.jenkinsci.plugins.buildnameupdater;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads single line of the file without loading whole file into the memory.
+ * <p>
+ * Lines longer than the limit are truncated to their beginning, so reading a huge file without new lines costs
+ * only a few kilobytes of the memory. Lines counted from the end of the file are truncated to their end instead
+ * when their beginning is not found within the limit and one more buffer, so the file is not read any further.
+ * Characters cut by the limit are left out. Lines are terminated by {@code \n}, {@code \r\n} or {@code \r},
+ * as by {@link java.io.BufferedReader#readLine()}.
+ */
+final class LineReader {
+
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    /** Longest encoded character of supported charsets. */
+    private static final int MAX_CHARACTER_BYTES = 4;
+
+    /** Line break was not looked for any further. */
+    private static final long NOT_FOUND_WITHIN_LIMIT = -2;
+
+    private LineReader() {
+    }
+
+    /**
+     * @param file       file to read
+     * @param lineNumber number of the line, {@code 1} is the first line, {@code -1} the last line
+     * @param maxBytes   maximum number of bytes of the line that are read
+     * @param charset    encoding of the file
+     * @return selected line or {@code null} when the file does not have such line
+     */
+    static String readLine(File file, int lineNumber, int maxBytes, Charset charset) throws IOException {
+        if (lineNumber == 0) {
+            throw new IllegalArgumentException("Line number must not be 0");
+        }
+
+        Line line = lineNumber > 0
+                ? readFromStart(file, lineNumber, maxBytes)
+                : readFromEnd(file, -lineNumber, maxBytes);
+        return line == null ? null : decode(line, charset);
+    }
+
+    private static Line readFromStart(File file, int lineNumber, int maxBytes) throws IOException {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file.toPath()), BUFFER_SIZE)) {
+            // skip preceding lines without keeping them
+            for (int skipped = 1; skipped < lineNumber; skipped++) {
+                int b;
+                do {
+                    b = in.read();
+                } while (b != -1 && !isLineBreak(b));
+                if (b == -1) {
+                    return null;
+                }
+                skipLineFeedAfterCarriageReturn(in, b);
+            }
+
+            ByteArrayOutputStream line = new ByteArrayOutputStream();
+            int b = in.read();
+            if (b == -1) {
+                return null;
+            }
+            while (b != -1 && !isLineBreak(b) && line.size() < maxBytes) {
+                line.write(b);
+                b = in.read();
+            }
+            return new Line(line.toByteArray(), false, b != -1 && !isLineBreak(b));
+        }
+    }
+
+    private static boolean isLineBreak(int b) {
+        return b == '\n' || b == '\r';
+    }
+
+    private static void skipLineFeedAfterCarriageReturn(InputStream in, int lineBreak) throws IOException {
+        if (lineBreak == '\r') {
+            in.mark(1);
+            if (in.read() != '\n') {
+                in.reset();
+            }
+        }
+    }
+
+    private static Line readFromEnd(File file, int lineNumber, int maxBytes) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            long lineEnd = channel.size();
+            if (lineEnd == 0) {
+                return null;
+            }
+            // line break at the end of the file terminates the last line
+            if (isLineBreak(readByte(channel, lineEnd - 1))) {
+                lineEnd = lineBreakStart(channel, lineEnd - 1);
+            }
+
+            for (int line = 1; ; line++) {
+                if (line == lineNumber) {
+                    long lineBreak = findPreviousLineBreak(channel, buffer, lineEnd, (long) maxBytes + BUFFER_SIZE);
+                    if (lineBreak == NOT_FOUND_WITHIN_LIMIT) {
+                        return new Line(read(channel, lineEnd - maxBytes, maxBytes), true, false);
+                    }
+                    long lineStart = lineBreak + 1;
+                    return new Line(read(channel, lineStart, (int) Math.min(lineEnd - lineStart, maxBytes)),
+                            false, lineEnd - lineStart > maxBytes);
+                }
+                // preceding lines are skipped, so they have to be scanned whole
+                long lineBreak = findPreviousLineBreak(channel, buffer, lineEnd, Long.MAX_VALUE);
+                if (lineBreak < 0) {
+                    return null;
+                }
+                lineEnd = lineBreakStart(channel, lineBreak);
+            }
+        }
+    }
+
+    /**
+     * @param limit maximum number of bytes before {@code end} that are scanned
+     * @return position of the closest line break before {@code end}, {@code -1} if there is none or
+     *         {@link #NOT_FOUND_WITHIN_LIMIT} when it was not found within the limit
+     */
+    private static long findPreviousLineBreak(FileChannel channel, ByteBuffer buffer, long end, long limit)
+            throws IOException {
+        long position = end;
+        while (position > 0) {
+            if (end - position >= limit) {
+                return NOT_FOUND_WITHIN_LIMIT;
+            }
+            int length = (int) Math.min(buffer.capacity(), position);
+            long chunkStart = position - length;
+            buffer.clear().limit(length);
+            readFully(channel, buffer, chunkStart);
+            for (int i = length - 1; i >= 0; i--) {
+                if (isLineBreak(buffer.get(i))) {
+                    return chunkStart + i;
+                }
+            }
+            position = chunkStart;
+        }
+        return -1;
+    }
+
+    /**
+     * @return position where the line break at given position starts, {@code \r\n} is one line break
+     */
+    private static long lineBreakStart(FileChannel channel, long lineBreak) throws IOException {
+        if (lineBreak > 0 && readByte(channel, lineBreak) == '\n' && readByte(channel, lineBreak - 1) == '\r') {
+            return lineBreak - 1;
+        }
+        return lineBreak;
+    }
+
+    private static byte readByte(FileChannel channel, long position) throws IOException {
+        return read(channel, position, 1)[0];
+    }
+
+    private static byte[] read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        readFully(channel, buffer, position);
+        return buffer.array();
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        long current = position;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, current);
+            if (read < 0) {
+                throw new EOFException("Unexpected end of file at position " + current);
+            }
+            current += read;
+        }
+    }
+
+    private static String decode(Line line, Charset charset) throws CharacterCodingException {
+        CharsetDecoder decoder = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        ByteBuffer bytes = ByteBuffer.wrap(line.bytes());
+        if (line.cutAtStart()) {
+            bytes.position(partialCharacterLength(line.bytes(), charset));
+        }
+        if (!line.cutAtEnd()) {
+            return decoder.decode(bytes).toString();
+        }
+
+        // bytes of the character cut at the end are not end of the input, so they are left undecoded
+        CharBuffer chars = CharBuffer.allocate((int) Math.ceil(bytes.remaining() * decoder.maxCharsPerByte()) + 1);
+        decoder.decode(bytes, chars, false);
+        return chars.flip().toString();
+    }
+
+    /**
+     * @return number of bytes at the beginning of the line that belong to the character cut by the limit
+     */
+    private static int partialCharacterLength(byte[] line, Charset charset) {
+        CharsetDecoder decoder = charset.newDecoder();
+        for (int skipped = 0; skipped < Math.min(line.length, MAX_CHARACTER_BYTES); skipped++) {
+            CoderResult result = decoder.reset().decode(
+                    ByteBuffer.wrap(line, skipped, line.length - skipped), CharBuffer.allocate(2), false);
+            if (!result.isMalformed()) {
+                return skipped;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * @param cutAtStart {@code true} when the beginning of the line was left out
+     * @param cutAtEnd   {@code true} when the end of the line was left out
+     */
+    private record Line(byte[] bytes, boolean cutAtStart, boolean cutAtEnd) {
+    }
+}
@@ -0,0 +1,269 @@
+package org.jenkinsci.plugins.buildnameupdater;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.EnvVars;
+import hudson.Extension;
+import hudson.FilePath;
+import hudson.Launcher;
+import hudson.model.AbstractProject;
+import hudson.model.Computer;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.remoting.VirtualChannel;
+import hudson.tasks.BuildWrapperDescriptor;
+import hudson.util.FormValidation;
+import jenkins.MasterToSlaveFileCallable;
+import jenkins.tasks.SimpleBuildWrapper;
+import jenkins.util.Timer;
+import org.apache.commons.lang3.StringUtils;
+import org.jenkinsci.Symbol;
+import org.jenkinsci.plugins.buildnamesetter.Executor;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+import org.kohsuke.stapler.QueryParameter;
+
+/**
+ * Keeps the build name in sync with the last line of the file from the workspace while the build is running.
+ * <p>
+ * The file is polled by the controller, every interval one call to the agent checks its size and modification time
+ * and the last line is read and transferred only when they have changed. Nothing runs on the agent between the checks,
+ * so the cost is one small remote call per running build and interval. The name is updated when the line is the same
+ * in two consecutive checks, so partially written lines are not used and the build is not updated more often than
+ * once per interval. Line of the file that changes on every check is applied after {@link #MAX_UNCONFIRMED_CHECKS}
+ * checks at the latest.
+ */
+public class LiveBuildNameUpdater extends SimpleBuildWrapper {
+
+    private static final Logger LOGGER = Logger.getLogger(LiveBuildNameUpdater.class.getName());
+
+    private static final int DEFAULT_INTERVAL = 10;
+
+    /** Number of checks after which the latest line is applied even if it has not been confirmed. */
+    static final int MAX_UNCONFIRMED_CHECKS = 3;
+
+    private static final Map<String, Tail> TAILS = new ConcurrentHashMap<>();
+
+    private final String file;
+    private int interval = DEFAULT_INTERVAL;
+
+    @DataBoundConstructor
+    public LiveBuildNameUpdater(String file) {
+        this.file = file;
+    }
+
+    public String getFile() {
+        return file;
+    }
+
+    public int getInterval() {
+        return interval;
+    }
+
+    /**
+     * @param interval how often the file is checked, in seconds
+     */
+    @DataBoundSetter
+    public void setInterval(int interval) {
+        this.interval = interval > 0 ? interval : DEFAULT_INTERVAL;
+    }
+
+    @Override
+    public void setUp(Context context, Run<?, ?> build, FilePath workspace, Launcher launcher, TaskListener listener,
+                      EnvVars initialEnvironment) {
+        if (StringUtils.isBlank(file)) {
+            listener.getLogger().println("File path is empty.");
+            return;
+        }
+
+        String id = build.getExternalizableId() + ':' + file;
+        Tail tail = new Tail(build, listener, workspace, file);
+        tail.future = Timer.get().scheduleWithFixedDelay(tail, interval, interval, TimeUnit.SECONDS);
+        TAILS.put(id, tail);
+        listener.getLogger().println("Watching " + tail.file + " for the build name");
+
+        context.setDisposer(new StopTail(id));
+    }
+
+    private static class StopTail extends Disposer {
+        private static final long serialVersionUID = 1L;
+
+        private final String id;
+
+        StopTail(String id) {
+            this.id = id;
+        }
+
+        @Override
+        public void tearDown(Run<?, ?> build, FilePath workspace, Launcher launcher, TaskListener listener) {
+            Tail tail = TAILS.remove(id);
+            // missing after restart of the controller
+            if (tail != null) {
+                tail.future.cancel(false);
+                tail.check(true);
+            }
+        }
+    }
+
+    /**
+     * Checks the file and pushes changed line to the build. Scheduled by {@link Timer} but the agent is called from
+     * {@link Computer#threadPoolForRemoting}, so slow agents do not block other timer tasks.
+     */
+    private static class Tail implements Runnable {
+
+        private final Run<?, ?> build;
+        private final TaskListener listener;
+        private final FilePath workspace;
+        private final FilePath file;
+        private volatile ScheduledFuture<?> future;
+        private final AtomicBoolean checking = new AtomicBoolean();
+
+        private long size = -1;
+        private long modified = -1;
+        private String candidate;
+        /** Number of checks that have seen the file changed since the candidate was applied. */
+        private int unconfirmed;
+        private String current;
+
+        Tail(Run<?, ?> build, TaskListener listener, FilePath workspace, String file) {
+            this.build = build;
+            this.listener = listener;
+            this.workspace = workspace;
+            this.file = workspace.child(file);
+        }
+
+        @Override
+        public void run() {
+            // previous check is still waiting for the agent
+            if (checking.compareAndSet(false, true)) {
+                Computer.threadPoolForRemoting.submit(() -> {
+                    try {
+                        check(false);
+                    } finally {
+                        checking.set(false);
+                    }
+                });
+            }
+        }
+
+        /**
+         * @param last {@code true} when the build is about to finish so the line does not have to be confirmed
+         */
+        synchronized void check(boolean last) {
+            TailResult result;
+            try {
+                result = file.act(new TailCallable(size, modified));
+            } catch (IOException e) {
+                LOGGER.log(Level.FINE, "Failed to read " + file, e);
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            if (result.changed) {
+                size = result.size;
+                modified = result.modified;
+                // file rewritten with the same line confirms it as well
+                boolean confirmed = Objects.equals(candidate, result.line);
+                candidate = result.line;
+                unconfirmed++;
+                if (!last && !confirmed && unconfirmed < MAX_UNCONFIRMED_CHECKS) {
+                    // wait for the next check to confirm the line is complete
+                    return;
+                }
+            }
+
+            unconfirmed = 0;
+            if (StringUtils.isNotBlank(candidate) && !Objects.equals(candidate, current)) {
+                current = candidate;
+                // content of the file is used as it is, it is not evaluated as a template
+                new Executor(build, listener, workspace).setEvaluatedNameAndDescription(current, null);
+            }
+        }
+    }
+
+    private static class TailResult implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final boolean changed;
+        private final long size;
+        private final long modified;
+        private final String line;
+
+        TailResult(boolean changed, long size, long modified, String line) {
+            this.changed = changed;
+            this.size = size;
+            this.modified = modified;
+            this.line = line;
+        }
+    }
+
+    /**
+     * Reads the last line of the file only when its size or modification time is different from the known one.
+     */
+    private static class TailCallable extends MasterToSlaveFileCallable<TailResult> {
+        private static final long serialVersionUID = 1L;
+
+        private final long size;
+        private final long modified;
+        private final int maxLineBytes;
+
+        TailCallable(long size, long modified) {
+            this.size = size;
+            this.modified = modified;
+            this.maxLineBytes = BuildNameUpdater.MAX_LINE_BYTES;
+        }
+
+        @Override
+        public TailResult invoke(File file, VirtualChannel channel) throws IOException {
+            if (!file.isFile()) {
+                return new TailResult(false, size, modified, null);
+            }
+
+            long currentSize = file.length();
+            long currentModified = file.lastModified();
+            if (currentSize == size && currentModified == modified) {
+                return new TailResult(false, size, modified, null);
+            }
+
+            String line = LineReader.readLine(file, -1, maxLineBytes, StandardCharsets.UTF_8);
+            return new TailResult(true, currentSize, currentModified, StringUtils.trim(line));
+        }
+    }
+
+    @Symbol("liveBuildName")
+    @Extension
+    public static class DescriptorImpl extends BuildWrapperDescriptor {
+
+        @Override
+        public boolean isApplicable(AbstractProject<?, ?> item) {
+            return true;
+        }
+
+        @SuppressWarnings("unused")
+        public FormValidation doCheckFile(@QueryParameter String value) {
+            if (value.isEmpty())
+                return FormValidation.error("Please set a file path");
+            return FormValidation.ok();
+        }
+
+        @NonNull
+        @Override
+        public String getDisplayName() {
+            return "Update build name from file while the build is running";
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package org.jenkinsci.plugins.buildnameupdater;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.nio.charset.Charset;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.EnvVars;
+import hudson.Extension;
+import hudson.FilePath;
+import hudson.Launcher;
+import hudson.console.ConsoleLogFilter;
+import hudson.console.ConsoleNote;
+import hudson.console.LineTransformationOutputStream;
+import hudson.model.AbstractBuild;
+import hudson.model.AbstractProject;
+import hudson.model.Computer;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.tasks.BuildWrapperDescriptor;
+import hudson.util.FormValidation;
+import jenkins.tasks.SimpleBuildWrapper;
+import org.apache.commons.lang3.StringUtils;
+import org.jenkinsci.Symbol;
+import org.jenkinsci.plugins.buildnamesetter.Executor;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+import org.kohsuke.stapler.QueryParameter;
+
+/**
+ * Sets the build name from the console output as it is written.
+ * <p>
+ * Every line is matched once by the compiled pattern when it is written to the log, so the cost is proportional
+ * to the new output and the log does not have to be read again at the end of the build,
+ * as log tokens like {@code BUILD_LOG_REGEX} do. Matches are applied in the background, so writing to the log
+ * never waits for the build to be updated, and the latest match is applied before the build ends.
+ * <p>
+ * Only builds of freestyle-like projects are supported, Pipeline applies the filter also on agents
+ * where the build is not available.
+ */
+public class LogBuildNameUpdater extends SimpleBuildWrapper {
+
+    /**
+     * Longer lines are truncated before matching so a huge line does not slow down the build.
+     */
+    private static final int MAX_LINE_BYTES = 8 * 1024;
+
+    private static final Map<String, Scanner> SCANNERS = new ConcurrentHashMap<>();
+
+    private final String pattern;
+    private boolean latest;
+
+    @DataBoundConstructor
+    public LogBuildNameUpdater(String pattern) {
+        this.pattern = pattern;
+    }
+
+    public String getPattern() {
+        return pattern;
+    }
+
+    public boolean isLatest() {
+        return latest;
+    }
+
+    /**
+     * @param latest {@code true} when every match updates the name, otherwise only the first match is used
+     */
+    @DataBoundSetter
+    public void setLatest(boolean latest) {
+        this.latest = latest;
+    }
+
+    @Override
+    public void setUp(Context context, Run<?, ?> build, FilePath workspace, Launcher launcher, TaskListener listener,
+                      EnvVars initialEnvironment) {
+        if (!(build instanceof AbstractBuild)) {
+            listener.getLogger().println("Build name is taken from the console output only in freestyle projects");
+            return;
+        }
+        // the log is scanned by the logger decorator
+        context.setDisposer(new ApplyPending(build.getExternalizableId()));
+    }
+
+    @Override
+    public ConsoleLogFilter createLoggerDecorator(@NonNull Run<?, ?> build) {
+        return build instanceof AbstractBuild ? new Filter(pattern, latest) : null;
+    }
+
+    /**
+     * Applies the latest match before the build ends.
+     */
+    private static class ApplyPending extends Disposer {
+        private static final long serialVersionUID = 1L;
+
+        private final String id;
+
+        ApplyPending(String id) {
+            this.id = id;
+        }
+
+        @Override
+        public void tearDown(Run<?, ?> build, FilePath workspace, Launcher launcher, TaskListener listener) {
+            Scanner scanner = SCANNERS.get(id);
+            if (scanner != null) {
+                scanner.applyPending();
+            }
+        }
+    }
+
+    private static class Filter extends ConsoleLogFilter implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final String pattern;
+        private final boolean latest;
+
+        Filter(String pattern, boolean latest) {
+            this.pattern = pattern;
+            this.latest = latest;
+        }
+
+        @Override
+        public OutputStream decorateLogger(Run build, OutputStream logger) {
+            // the build is not available when the filter is applied on the agent
+            if (build == null || StringUtils.isBlank(pattern)) {
+                return logger;
+            }
+            Scanner scanner = new Scanner(logger, build, Pattern.compile(pattern), latest);
+            SCANNERS.put(build.getExternalizableId(), scanner);
+            return scanner;
+        }
+    }
+
+    private static class Scanner extends LineTransformationOutputStream.Delegating {
+
+        private final Run<?, ?> build;
+        private final Matcher matcher;
+        private final boolean latest;
+        private final Charset charset;
+        private boolean matched;
+        /** The latest match that has not been applied yet. */
+        private final AtomicReference<String> pending = new AtomicReference<>();
+
+        Scanner(OutputStream out, Run<?, ?> build, Pattern pattern, boolean latest) {
+            super(out);
+            this.build = build;
+            this.matcher = pattern.matcher("");
+            this.latest = latest;
+            this.charset = build.getCharset();
+        }
+
+        @Override
+        protected void eol(byte[] b, int len) throws IOException {
+            out.write(b, 0, len);
+            // nothing else to do once the first match has been used
+            if (matched && !latest) {
+                return;
+            }
+
+            String line = trimEOL(ConsoleNote.removeNotes(new String(b, 0, Math.min(len, MAX_LINE_BYTES), charset)));
+            if (!matcher.reset(line).find()) {
+                return;
+            }
+
+            String name = StringUtils.trim(matcher.groupCount() > 0 && matcher.group(1) != null
+                    ? matcher.group(1) : matcher.group());
+            if (StringUtils.isNotEmpty(name)) {
+                matched = true;
+                // the task is already scheduled when there is a pending match, it takes the newer one
+                if (pending.getAndSet(name) == null) {
+                    Computer.threadPoolForRemoting.submit(this::applyPending);
+                }
+            }
+        }
+
+        /**
+         * Matches are applied one at a time, so the older match never replaces the newer one.
+         */
+        synchronized void applyPending() {
+            String name = pending.getAndSet(null);
+            if (name != null) {
+                // output is not a template so it is not evaluated, listener must not write to this log
+                new Executor(build, TaskListener.NULL).setEvaluatedNameAndDescription(name, null);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                SCANNERS.remove(build.getExternalizableId(), this);
+                applyPending();
+            }
+        }
+    }
+
+    @Symbol("logBuildName")
+    @Extension
+    public static class DescriptorImpl extends BuildWrapperDescriptor {
+
+        @Override
+        public boolean isApplicable(AbstractProject<?, ?> item) {
+            return true;
+        }
+
+        @SuppressWarnings("unused")
+        public FormValidation doCheckPattern(@QueryParameter String value) {
+            if (value.isEmpty())
+                return FormValidation.error("Please set a pattern");
+            try {
+                Pattern.compile(value);
+            } catch (PatternSyntaxException e) {
+                return FormValidation.error("Invalid pattern: " + e.getDescription());
+            }
+            return FormValidation.ok();
+        }
+
+        @NonNull
+        @Override
+        public String getDisplayName() {
+            return "Update build name from console output";
+        }
+    }
+}
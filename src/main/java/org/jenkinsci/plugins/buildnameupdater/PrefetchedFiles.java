@@ -0,0 +1,61 @@
+package org.jenkinsci.plugins.buildnameupdater;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.model.listeners.RunListener;
+
+/**
+ * Keeps files that are read in the background for {@link BuildNameUpdater} until the build step needs them.
+ * Nothing is persisted with the build, reads that were not used are cancelled when the build completes or is deleted.
+ * Builds are weakly referenced, so builds that never complete are not kept in the memory.
+ */
+public final class PrefetchedFiles {
+
+    private static final Map<Run<?, ?>, Map<List<String>, Future<Map<String, FileContent>>>> PENDING =
+            Collections.synchronizedMap(new WeakHashMap<>());
+
+    private PrefetchedFiles() {
+    }
+
+    static void start(Run<?, ?> build, List<String> paths, Future<Map<String, FileContent>> future) {
+        PENDING.computeIfAbsent(build, r -> new ConcurrentHashMap<>()).put(paths, future);
+    }
+
+    /**
+     * @return prefetched files or {@code null} if they were not prefetched
+     */
+    static Future<Map<String, FileContent>> take(Run<?, ?> build, List<String> paths) {
+        Map<List<String>, Future<Map<String, FileContent>>> pending = PENDING.get(build);
+        return pending == null ? null : pending.remove(paths);
+    }
+
+    @Extension
+    public static final class CancelOnCompletion extends RunListener<Run<?, ?>> {
+
+        @Override
+        public void onCompleted(Run<?, ?> run, @NonNull TaskListener listener) {
+            cancel(run);
+        }
+
+        @Override
+        public void onDeleted(Run<?, ?> run) {
+            cancel(run);
+        }
+
+        private static void cancel(Run<?, ?> run) {
+            Map<List<String>, Future<Map<String, FileContent>>> pending = PENDING.remove(run);
+            if (pending != null) {
+                pending.values().forEach(future -> future.cancel(true));
+            }
+        }
+    }
+}
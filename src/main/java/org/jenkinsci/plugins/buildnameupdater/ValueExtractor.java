@@ -0,0 +1,537 @@
+package org.jenkinsci.plugins.buildnameupdater;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Properties;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Extracts the value from the file on the agent. Structured files are read only until the value is found,
+ * so large manifests are neither parsed nor transferred completely, and only the first {@code maxBytes} bytes
+ * of the value are kept in the memory.
+ */
+public enum ValueExtractor {
+
+    /** Selected line of the file, see {@link LineReader}. */
+    LINE("Line of the file") {
+        @Override
+        String extract(File file, String expression, int lineNumber, int maxBytes) throws IOException {
+            return LineReader.readLine(file, lineNumber, maxBytes, StandardCharsets.UTF_8);
+        }
+    },
+
+    /** Text of the element selected by the path of element names, for example {@code /project/version}. */
+    XML("XML element") {
+        @Override
+        String extract(File file, String expression, int lineNumber, int maxBytes) throws IOException {
+            return truncate(readXml(file, expression, maxBytes), maxBytes);
+        }
+
+        @Override
+        void validate(String expression) {
+            if (StringUtils.split(StringUtils.defaultString(expression), '/').length == 0) {
+                throw new IllegalArgumentException("Path of the element is required, for example /project/version");
+            }
+        }
+    },
+
+    /** Value selected by JSON pointer, for example {@code /version}. */
+    JSON("JSON pointer") {
+        @Override
+        String extract(File file, String expression, int lineNumber, int maxBytes) throws IOException {
+            List<String> pointer;
+            try {
+                pointer = parsePointer(expression);
+            } catch (IllegalArgumentException e) {
+                throw new IOException(e.getMessage(), e);
+            }
+            try (Reader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+                return truncate(new JsonPointerReader(reader, maxBytes).find(pointer), maxBytes);
+            }
+        }
+
+        @Override
+        void validate(String expression) {
+            parsePointer(expression);
+        }
+    },
+
+    /** Value of the property with the given key. */
+    PROPERTIES("Property") {
+        @Override
+        String extract(File file, String expression, int lineNumber, int maxBytes) throws IOException {
+            return truncate(readProperty(file, expression, maxBytes), maxBytes);
+        }
+
+        @Override
+        void validate(String expression) {
+            if (StringUtils.isBlank(expression)) {
+                throw new IllegalArgumentException("Key of the property is required, for example version");
+            }
+        }
+    };
+
+    /**
+     * Longest escape sequence of properties file, unicode escape takes six characters for one character.
+     */
+    private static final int MAX_ESCAPE_LENGTH = 6;
+
+    private final String displayName;
+
+    ValueExtractor(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    /**
+     * @return extracted value or {@code null} when the file does not contain it
+     */
+    abstract String extract(File file, String expression, int lineNumber, int maxBytes) throws IOException;
+
+    /**
+     * Checks the expression before the file is read.
+     *
+     * @throws IllegalArgumentException with the description of the problem when the expression is not valid
+     */
+    void validate(String expression) {
+    }
+
+    /**
+     * @return trimmed value cut to at most {@code maxBytes} bytes of UTF-8 without splitting any character
+     */
+    static String truncate(String value, int maxBytes) {
+        if (value == null) {
+            return null;
+        }
+
+        String trimmed = value.trim();
+        int bytes = 0;
+        for (int i = 0; i < trimmed.length(); ) {
+            int codePoint = trimmed.codePointAt(i);
+            bytes += utf8Length(codePoint);
+            if (bytes > maxBytes) {
+                return trimmed.substring(0, i);
+            }
+            i += Character.charCount(codePoint);
+        }
+        return trimmed;
+    }
+
+    private static int utf8Length(int codePoint) {
+        if (codePoint < 0x80) {
+            return 1;
+        }
+        if (codePoint < 0x800) {
+            return 2;
+        }
+        return codePoint < 0x10000 ? 3 : 4;
+    }
+
+    private static String readXml(File file, String expression, int maxBytes) throws IOException {
+        List<String> path = Arrays.asList(StringUtils.split(StringUtils.defaultString(expression), '/'));
+        if (path.isEmpty()) {
+            return null;
+        }
+
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        // the file comes from the workspace so it is not trusted
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            XMLStreamReader reader = factory.createXMLStreamReader(in);
+            try {
+                Deque<String> current = new ArrayDeque<>();
+                // number of leading elements of the current path that match the expression
+                int matched = 0;
+                while (reader.hasNext()) {
+                    int event = reader.next();
+                    if (event == XMLStreamConstants.START_ELEMENT) {
+                        current.addLast(reader.getLocalName());
+                        if (matched == current.size() - 1 && matched < path.size()
+                                && path.get(matched).equals(reader.getLocalName())) {
+                            matched++;
+                            if (matched == path.size()) {
+                                return readElementText(reader, maxBytes);
+                            }
+                        }
+                    } else if (event == XMLStreamConstants.END_ELEMENT) {
+                        current.removeLast();
+                        matched = Math.min(matched, current.size());
+                    }
+                }
+                return null;
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException("Failed to parse " + file, e);
+        }
+    }
+
+    /**
+     * Same as {@link XMLStreamReader#getElementText()} but the text above the limit is dropped.
+     */
+    private static String readElementText(XMLStreamReader reader, int maxBytes) throws XMLStreamException {
+        BoundedText text = new BoundedText(maxBytes);
+        while (true) {
+            switch (reader.next()) {
+                case XMLStreamConstants.CHARACTERS, XMLStreamConstants.CDATA, XMLStreamConstants.SPACE,
+                     XMLStreamConstants.ENTITY_REFERENCE ->
+                        text.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                case XMLStreamConstants.END_ELEMENT -> {
+                    return text.toString();
+                }
+                case XMLStreamConstants.START_ELEMENT ->
+                        throw new XMLStreamException("Element contains other elements", reader.getLocation());
+                case XMLStreamConstants.END_DOCUMENT ->
+                        throw new XMLStreamException("Unexpected end of document", reader.getLocation());
+                default -> {
+                    // comments and processing instructions are not part of the text
+                }
+            }
+        }
+    }
+
+    private static String readProperty(File file, String key, int maxBytes) throws IOException {
+        // enough for escaped key, separator and escaped value of the maximal length
+        int maxLineLength = MAX_ESCAPE_LENGTH * (key.length() + maxBytes) + 2;
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            StringBuilder logicalLine = new StringBuilder();
+            String result = null;
+            String line;
+            while ((line = readLine(reader, maxLineLength)) != null) {
+                if (logicalLine.isEmpty() && StringUtils.startsWithAny(line.stripLeading(), "#", "!")) {
+                    continue;
+                }
+                if (logicalLine.length() < maxLineLength) {
+                    logicalLine.append(line).append('\n');
+                }
+                if (endsWithContinuation(line)) {
+                    continue;
+                }
+
+                // only one logical line is parsed at a time, so only the current value is kept in the memory
+                Properties properties = new Properties();
+                try {
+                    properties.load(new StringReader(logicalLine.toString()));
+                } catch (IllegalArgumentException e) {
+                    throw new IOException("Failed to parse " + file + ": " + e.getMessage(), e);
+                }
+                logicalLine.setLength(0);
+                String value = properties.getProperty(key);
+                if (value != null) {
+                    // the last occurrence wins, as in Properties#load()
+                    result = value;
+                }
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Same as {@link BufferedReader#readLine()} but characters above the limit are skipped.
+     */
+    private static String readLine(BufferedReader reader, int maxLength) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int c;
+        while ((c = reader.read()) != -1) {
+            if (c == '\n') {
+                return line.toString();
+            }
+            if (c == '\r') {
+                reader.mark(1);
+                if (reader.read() != '\n') {
+                    reader.reset();
+                }
+                return line.toString();
+            }
+            if (line.length() < maxLength) {
+                line.append((char) c);
+            }
+        }
+        return line.isEmpty() ? null : line.toString();
+    }
+
+    private static boolean endsWithContinuation(String line) {
+        int backslashes = 0;
+        for (int i = line.length() - 1; i >= 0 && line.charAt(i) == '\\'; i--) {
+            backslashes++;
+        }
+        return backslashes % 2 == 1;
+    }
+
+    static List<String> parsePointer(String expression) {
+        List<String> tokens = new ArrayList<>();
+        String pointer = StringUtils.defaultString(expression);
+        if (pointer.isEmpty()) {
+            return tokens;
+        }
+        if (!pointer.startsWith("/")) {
+            throw new IllegalArgumentException("JSON pointer must start with '/': " + expression);
+        }
+        for (String token : pointer.substring(1).split("/", -1)) {
+            tokens.add(token.replace("~1", "/").replace("~0", "~"));
+        }
+        return tokens;
+    }
+
+    /**
+     * Minimal streaming JSON reader that walks only the way to the value selected by the pointer
+     * and skips everything else without building any objects.
+     */
+    static final class JsonPointerReader {
+
+        private final Reader reader;
+        private final int maxBytes;
+        private int peeked = -2;
+
+        JsonPointerReader(Reader reader, int maxBytes) {
+            this.reader = reader;
+            this.maxBytes = maxBytes;
+        }
+
+        /**
+         * @return scalar value selected by the pointer, {@code null} when it is missing, JSON null, object or array
+         */
+        String find(List<String> pointer) throws IOException {
+            for (String token : pointer) {
+                int c = nextNonWhitespace();
+                if (c == '{') {
+                    if (!seekMember(token)) {
+                        return null;
+                    }
+                } else if (c == '[') {
+                    if (!StringUtils.isNumeric(token) || !seekElement(Integer.parseInt(token))) {
+                        return null;
+                    }
+                } else {
+                    return null;
+                }
+            }
+            return readScalar();
+        }
+
+        private boolean seekMember(String name) throws IOException {
+            if (peekNonWhitespace() == '}') {
+                return false;
+            }
+            while (true) {
+                expect(nextNonWhitespace(), '"');
+                // one character more than the name is enough to tell that the key is different
+                String key = readString(new BoundedText(name.getBytes(StandardCharsets.UTF_8).length + 4));
+                expect(nextNonWhitespace(), ':');
+                if (key.equals(name)) {
+                    return true;
+                }
+                skipValue();
+                int c = nextNonWhitespace();
+                if (c != ',') {
+                    expect(c, '}');
+                    return false;
+                }
+            }
+        }
+
+        private boolean seekElement(int index) throws IOException {
+            if (peekNonWhitespace() == ']') {
+                return false;
+            }
+            for (int i = 0; ; i++) {
+                if (i == index) {
+                    return true;
+                }
+                skipValue();
+                int c = nextNonWhitespace();
+                if (c != ',') {
+                    expect(c, ']');
+                    return false;
+                }
+            }
+        }
+
+        private String readScalar() throws IOException {
+            int c = nextNonWhitespace();
+            if (c == '"') {
+                return readString(new BoundedText(maxBytes));
+            }
+            if (c == '{' || c == '[' || c == -1) {
+                return null;
+            }
+            String literal = readLiteral(c, new BoundedText(maxBytes));
+            return "null".equals(literal) ? null : literal;
+        }
+
+        private void skipValue() throws IOException {
+            int c = nextNonWhitespace();
+            if (c == '"') {
+                readString(BoundedText.NONE);
+            } else if (c == '{' || c == '[') {
+                int depth = 1;
+                while (depth > 0) {
+                    c = next();
+                    if (c == -1) {
+                        throw new IOException("Unexpected end of JSON");
+                    } else if (c == '"') {
+                        readString(BoundedText.NONE);
+                    } else if (c == '{' || c == '[') {
+                        depth++;
+                    } else if (c == '}' || c == ']') {
+                        depth--;
+                    }
+                }
+            } else {
+                readLiteral(c, BoundedText.NONE);
+            }
+        }
+
+        private String readLiteral(int first, BoundedText literal) throws IOException {
+            literal.append((char) first);
+            int c;
+            while ((c = peek()) != -1 && c != ',' && c != '}' && c != ']' && !Character.isWhitespace(c)) {
+                literal.append((char) next());
+            }
+            return literal.toString();
+        }
+
+        /**
+         * Reads the rest of the string, characters above the limit of the value are skipped.
+         */
+        private String readString(BoundedText value) throws IOException {
+            int c;
+            while ((c = next()) != '"') {
+                if (c == -1) {
+                    throw new IOException("Unterminated JSON string");
+                }
+                if (c == '\\') {
+                    c = next();
+                    switch (c) {
+                        case 'b' -> value.append('\b');
+                        case 'f' -> value.append('\f');
+                        case 'n' -> value.append('\n');
+                        case 'r' -> value.append('\r');
+                        case 't' -> value.append('\t');
+                        case 'u' -> {
+                            char[] hex = new char[4];
+                            for (int i = 0; i < hex.length; i++) {
+                                hex[i] = (char) next();
+                            }
+                            try {
+                                value.append((char) Integer.parseInt(new String(hex), 16));
+                            } catch (NumberFormatException e) {
+                                throw new IOException("Invalid escape in JSON string: \\u" + new String(hex), e);
+                            }
+                        }
+                        default -> value.append((char) c);
+                    }
+                } else {
+                    value.append((char) c);
+                }
+            }
+            return value.toString();
+        }
+
+        private static void expect(int actual, char expected) throws IOException {
+            if (actual != expected) {
+                throw new IOException("Expected '" + expected + "' in JSON but found "
+                        + (actual == -1 ? "end of file" : "'" + (char) actual + "'"));
+            }
+        }
+
+        private int nextNonWhitespace() throws IOException {
+            int c;
+            do {
+                c = next();
+            } while (c != -1 && Character.isWhitespace(c));
+            return c;
+        }
+
+        private int peekNonWhitespace() throws IOException {
+            int c;
+            while ((c = peek()) != -1 && Character.isWhitespace(c)) {
+                next();
+            }
+            return c;
+        }
+
+        private int peek() throws IOException {
+            if (peeked == -2) {
+                peeked = reader.read();
+            }
+            return peeked;
+        }
+
+        private int next() throws IOException {
+            int c = peek();
+            peeked = -2;
+            return c;
+        }
+    }
+
+    /**
+     * Text that keeps only characters which fit into the limit of UTF-8 bytes, so huge values are never held in
+     * the memory. Characters above the limit are dropped.
+     */
+    static final class BoundedText {
+
+        /** Drops all characters, used for values that are only skipped. */
+        static final BoundedText NONE = new BoundedText(0);
+
+        private final StringBuilder text = new StringBuilder();
+        private final int maxBytes;
+        private int bytes;
+        private boolean full;
+
+        BoundedText(int maxBytes) {
+            this.maxBytes = maxBytes;
+        }
+
+        void append(char c) {
+            if (full || maxBytes == 0) {
+                return;
+            }
+            // each half of the surrogate pair counts as two of four bytes of the character
+            int length = c < 0x80 ? 1 : c < 0x800 || Character.isSurrogate(c) ? 2 : 3;
+            if (bytes + length > maxBytes) {
+                full = true;
+                // half of the pair is not a valid character
+                if (!text.isEmpty() && Character.isHighSurrogate(text.charAt(text.length() - 1))) {
+                    text.setLength(text.length() - 1);
+                }
+                return;
+            }
+            bytes += length;
+            text.append(c);
+        }
+
+        void append(char[] chars, int start, int length) {
+            for (int i = start; i < start + length && !full; i++) {
+                append(chars[i]);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return text.toString();
+        }
+    }
+}
@@ -3,6 +3,7 @@ package org.jenkinsci.plugins.pipeline;
 import hudson.Extension;
 import hudson.FilePath;
 import hudson.Launcher;
+import hudson.Util;
 import hudson.model.AbstractProject;
 import hudson.model.Run;
 import hudson.model.TaskListener;
@@ -12,6 +13,7 @@ import jenkins.tasks.SimpleBuildStep;
 import org.jenkinsci.Symbol;
 import org.jenkinsci.plugins.buildnamesetter.Executor;
 import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
 
 /**
  * @author Damian Szczepanik (damianszczepanik@github)
@@ -19,6 +21,7 @@ import org.kohsuke.stapler.DataBoundConstructor;
 public class BuildDescriptionStep extends Builder implements SimpleBuildStep {
 
     private final String descriptionTemplate;
+    private String key;
 
     @DataBoundConstructor
     public BuildDescriptionStep(String descriptionTemplate) {
@@ -29,10 +32,26 @@ public class BuildDescriptionStep extends Builder implements SimpleBuildStep {
         return descriptionTemplate;
     }
 
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * @param key identifies the section of the description which is set, other sections are kept
+     */
+    @DataBoundSetter
+    public void setKey(String key) {
+        this.key = Util.fixEmptyAndTrim(key);
+    }
+
     @Override
     public void perform(Run run, FilePath workspace, Launcher launcher, TaskListener listener) {
-        Executor executor = new Executor(run, listener);
-        executor.setDescription(descriptionTemplate);
+        Executor executor = new Executor(run, listener, workspace);
+        if (key != null) {
+            executor.mergeDescription(key, descriptionTemplate);
+        } else {
+            executor.setDescription(descriptionTemplate);
+        }
     }
 
     @Symbol("buildDescription")
@@ -0,0 +1,120 @@
+package org.jenkinsci.plugins.pipeline;
+
+import java.util.Set;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.FilePath;
+import hudson.Util;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import org.jenkinsci.plugins.buildnamesetter.Executor;
+import org.jenkinsci.plugins.workflow.steps.Step;
+import org.jenkinsci.plugins.workflow.steps.StepContext;
+import org.jenkinsci.plugins.workflow.steps.StepDescriptor;
+import org.jenkinsci.plugins.workflow.steps.StepExecution;
+import org.jenkinsci.plugins.workflow.steps.SynchronousNonBlockingStepExecution;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+
+/**
+ * Pipeline counterpart of {@link BuildDescriptionStep} that evaluates the template in the background
+ * so the CPS VM thread is not blocked and does not require node or workspace.
+ */
+public class BuildDescriptionWorkflowStep extends Step {
+
+    private final String descriptionTemplate;
+    private boolean append;
+    private String key;
+
+    @DataBoundConstructor
+    public BuildDescriptionWorkflowStep(String descriptionTemplate) {
+        this.descriptionTemplate = descriptionTemplate;
+    }
+
+    public String getDescriptionTemplate() {
+        return descriptionTemplate;
+    }
+
+    public boolean isAppend() {
+        return append;
+    }
+
+    /**
+     * @param append when {@code true} the description is added to the current one instead of replacing it
+     */
+    @DataBoundSetter
+    public void setAppend(boolean append) {
+        this.append = append;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * @param key identifies the section of the description which is replaced, other sections are kept
+     */
+    @DataBoundSetter
+    public void setKey(String key) {
+        this.key = Util.fixEmptyAndTrim(key);
+    }
+
+    @Override
+    public StepExecution start(StepContext context) {
+        return new Execution(context, this);
+    }
+
+    private static class Execution extends SynchronousNonBlockingStepExecution<Void> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String descriptionTemplate;
+        private final boolean append;
+        private final String key;
+
+        Execution(StepContext context, BuildDescriptionWorkflowStep step) {
+            super(context);
+            this.descriptionTemplate = step.descriptionTemplate;
+            this.append = step.append;
+            this.key = step.key;
+        }
+
+        @Override
+        protected Void run() throws Exception {
+            // workspace is available only inside node block
+            Executor executor = new Executor(getContext().get(Run.class), getContext().get(TaskListener.class),
+                    getContext().get(FilePath.class));
+            if (key != null) {
+                executor.mergeDescription(key, descriptionTemplate);
+            } else if (append) {
+                executor.appendDescription(descriptionTemplate, "\n");
+            } else {
+                executor.setDescription(descriptionTemplate);
+            }
+            return null;
+        }
+    }
+
+    // function name differs from the symbol of BuildDescriptionStep, so existing pipelines that call buildDescription
+    // keep evaluating macros in the workspace of the node
+    @Extension(optional = true)
+    public static class DescriptorImpl extends StepDescriptor {
+
+        @Override
+        public Set<? extends Class<?>> getRequiredContext() {
+            return Set.of(Run.class, TaskListener.class);
+        }
+
+        @Override
+        public String getFunctionName() {
+            return "setBuildDescription";
+        }
+
+        @NonNull
+        @Override
+        public String getDisplayName() {
+            return "Set build description";
+        }
+    }
+}
@@ -31,7 +31,7 @@ public class BuildNameStep extends Builder implements SimpleBuildStep {
 
     @Override
     public void perform(Run run, FilePath workspace, Launcher launcher, TaskListener listener) {
-        Executor executor = new Executor(run, listener);
+        Executor executor = new Executor(run, listener, workspace);
         executor.setName(nameTemplate);
     }
 
@@ -0,0 +1,82 @@
+package org.jenkinsci.plugins.pipeline;
+
+import java.util.Set;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.FilePath;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import org.jenkinsci.plugins.buildnamesetter.Executor;
+import org.jenkinsci.plugins.workflow.steps.Step;
+import org.jenkinsci.plugins.workflow.steps.StepContext;
+import org.jenkinsci.plugins.workflow.steps.StepDescriptor;
+import org.jenkinsci.plugins.workflow.steps.StepExecution;
+import org.jenkinsci.plugins.workflow.steps.SynchronousNonBlockingStepExecution;
+import org.kohsuke.stapler.DataBoundConstructor;
+
+/**
+ * Pipeline counterpart of {@link BuildNameStep} that evaluates the template in the background
+ * so the CPS VM thread is not blocked and does not require node or workspace.
+ */
+public class BuildNameWorkflowStep extends Step {
+
+    private final String nameTemplate;
+
+    @DataBoundConstructor
+    public BuildNameWorkflowStep(String nameTemplate) {
+        this.nameTemplate = nameTemplate;
+    }
+
+    public String getNameTemplate() {
+        return nameTemplate;
+    }
+
+    @Override
+    public StepExecution start(StepContext context) {
+        return new Execution(context, nameTemplate);
+    }
+
+    private static class Execution extends SynchronousNonBlockingStepExecution<Void> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String nameTemplate;
+
+        Execution(StepContext context, String nameTemplate) {
+            super(context);
+            this.nameTemplate = nameTemplate;
+        }
+
+        @Override
+        protected Void run() throws Exception {
+            // workspace is available only inside node block
+            Executor executor = new Executor(getContext().get(Run.class), getContext().get(TaskListener.class),
+                    getContext().get(FilePath.class));
+            executor.setName(nameTemplate);
+            return null;
+        }
+    }
+
+    // function name differs from the symbol of BuildNameStep, so existing pipelines that call buildName
+    // keep evaluating macros in the workspace of the node
+    @Extension(optional = true)
+    public static class DescriptorImpl extends StepDescriptor {
+
+        @Override
+        public Set<? extends Class<?>> getRequiredContext() {
+            return Set.of(Run.class, TaskListener.class);
+        }
+
+        @Override
+        public String getFunctionName() {
+            return "setBuildName";
+        }
+
+        @NonNull
+        @Override
+        public String getDisplayName() {
+            return "Set build name";
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package org.jenkinsci.plugins;
+
+import hudson.EnvVars;
+import jenkins.benchmark.jmh.JmhBenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+@JmhBenchmark
+@Threads(4)
+public class EnvironmentVarSetterBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class SharedAction {
+        EnvironmentVarSetter action;
+
+        @Setup
+        public void setup() {
+            action = new EnvironmentVarSetter("VERSION", "1.0.0", null);
+            for (int i = 0; i < 10; i++) {
+                action.setVar("VAR_" + i, "value_" + i);
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Counter {
+        int value;
+    }
+
+    @Benchmark
+    public void setVar(SharedAction state, Counter counter) {
+        state.action.setVar("VERSION", "1.0." + (counter.value++ % 2));
+    }
+
+    @Benchmark
+    public String getVar(SharedAction state) {
+        return state.action.getVar("VERSION");
+    }
+
+    @Benchmark
+    public EnvVars buildEnvVars(SharedAction state) {
+        EnvVars envVars = new EnvVars();
+        state.action.buildEnvVars(null, envVars);
+        return envVars;
+    }
+}
@@ -0,0 +1,227 @@
+package org.jenkinsci.plugins;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import hudson.Launcher;
+import hudson.XmlFile;
+import hudson.matrix.AxisList;
+import hudson.matrix.MatrixProject;
+import hudson.matrix.TextAxis;
+import hudson.model.AbstractBuild;
+import hudson.model.BuildListener;
+import hudson.model.FreeStyleProject;
+import hudson.model.Run;
+import hudson.model.Saveable;
+import hudson.model.listeners.SaveableListener;
+import hudson.model.queue.QueueTaskFuture;
+import net.sf.json.JSONObject;
+import org.jenkinsci.plugins.buildnamesetter.BuildNameSetter;
+import org.jenkinsci.plugins.buildnamesetter.NamingMetrics;
+import org.jenkinsci.plugins.buildnamesetter.NamingPhase;
+import org.jenkinsci.plugins.buildnameupdater.BuildNameUpdater;
+import org.jenkinsci.plugins.workflow.cps.CpsFlowDefinition;
+import org.jenkinsci.plugins.workflow.job.WorkflowJob;
+import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.TestBuilder;
+import org.jvnet.hudson.test.TestExtension;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+/**
+ * Runs hundreds of concurrent freestyle, matrix and pipeline builds that use the plugin and reports throughput,
+ * time spent in naming phases, number of saved builds and allocated memory, executed only by {@code load-test} profile.
+ * Results are written to {@code target/load-test-report.json} so they can be compared between releases.
+ * <p>
+ * Number of builds and executors can be changed by {@code loadTest.builds} and {@code loadTest.executors} properties.
+ */
+@WithJenkins
+class LoadTestRunner {
+
+    private static final int BUILDS = Integer.getInteger("loadTest.builds", 300);
+    private static final int EXECUTORS = Integer.getInteger("loadTest.executors", 16);
+
+    @Test
+    void runConcurrentBuilds(JenkinsRule jenkins) throws Exception {
+        jenkins.jenkins.setNumExecutors(EXECUTORS);
+        // queue merges requests of the same job so every build has its own job
+        List<QueueTaskFuture<? extends Run<?, ?>>> futures = new ArrayList<>();
+        List<Runnable> schedules = new ArrayList<>();
+        for (int i = 0; i < BUILDS; i++) {
+            switch (i % 3) {
+                case 0 -> {
+                    FreeStyleProject project = createFreeStyleProject(jenkins, "freestyle" + i);
+                    schedules.add(() -> futures.add(project.scheduleBuild2(0)));
+                }
+                case 1 -> {
+                    MatrixProject project = createMatrixProject(jenkins, "matrix" + i);
+                    schedules.add(() -> futures.add(project.scheduleBuild2(0)));
+                }
+                default -> {
+                    WorkflowJob job = createPipeline(jenkins, "pipeline" + i);
+                    schedules.add(() -> futures.add(job.scheduleBuild2(0)));
+                }
+            }
+        }
+
+        NamingMetrics.reset();
+        RunSaveCounter.SAVES.reset();
+        AllocationSampler allocations = new AllocationSampler();
+        allocations.start();
+
+        long start = System.nanoTime();
+        schedules.forEach(Runnable::run);
+        for (QueueTaskFuture<? extends Run<?, ?>> future : futures) {
+            jenkins.assertBuildStatusSuccess(future);
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = allocations.stop();
+
+        JSONObject report = new JSONObject();
+        report.put("builds", BUILDS);
+        report.put("executors", EXECUTORS);
+        report.put("buildsPerSecond", BUILDS / (elapsed / (double) TimeUnit.SECONDS.toNanos(1)));
+        report.put("buildSaves", RunSaveCounter.SAVES.sum());
+        report.put("pluginBuildSaves", NamingMetrics.getCounter(NamingMetrics.BUILD_SAVES));
+        report.put("allocatedBytesPerBuild", allocated / BUILDS);
+        report.put("phases", getPhases());
+
+        String json = report.toString(2);
+        File reportFile = new File("target/load-test-report.json");
+        Files.createDirectories(reportFile.getParentFile().toPath());
+        Files.writeString(reportFile.toPath(), json, StandardCharsets.UTF_8);
+    }
+
+    private static FreeStyleProject createFreeStyleProject(JenkinsRule jenkins, String name) throws IOException {
+        FreeStyleProject project = jenkins.createFreeStyleProject(name);
+        BuildNameSetter setter = new BuildNameSetter("v_${BUILD_NUMBER}_${JOB_NAME}", true, true);
+        setter.setDescriptionTemplate("Built on ${NODE_NAME}");
+        project.getBuildWrappersList().add(setter);
+        project.getBuildersList().add(new TestBuilder() {
+            @Override
+            public boolean perform(AbstractBuild<?, ?> build, Launcher launcher, BuildListener listener)
+                    throws InterruptedException, IOException {
+                build.getWorkspace().child("version.txt").write("1.0." + build.getNumber(), "UTF-8");
+                return true;
+            }
+        });
+        project.getBuildersList().add(new BuildNameUpdater(true, "version.txt", false, null, false));
+        return project;
+    }
+
+    private static MatrixProject createMatrixProject(JenkinsRule jenkins, String name) throws IOException {
+        MatrixProject project = jenkins.createProject(MatrixProject.class, name);
+        project.setAxes(new AxisList(new TextAxis("axis", "a", "b")));
+        project.getBuildWrappersList().add(
+                new BuildNameSetter("${MATRIX_COMPLETED} of ${MATRIX_TOTAL}", true, true));
+        return project;
+    }
+
+    private static WorkflowJob createPipeline(JenkinsRule jenkins, String name) throws IOException {
+        WorkflowJob job = jenkins.createProject(WorkflowJob.class, name);
+        job.setDefinition(new CpsFlowDefinition(
+                "setBuildName 'p_${BUILD_NUMBER}'\n"
+                        + "parallel a: { setBuildDescription descriptionTemplate: 'a', append: true },\n"
+                        + "         b: { setBuildDescription descriptionTemplate: 'b', append: true }", true));
+        return job;
+    }
+
+    private static JSONObject getPhases() {
+        JSONObject phases = new JSONObject();
+        for (NamingPhase phase : NamingPhase.values()) {
+            JSONObject histograms = new JSONObject();
+            for (String name : List.of(NamingMetrics.EVALUATION, NamingMetrics.PERSISTENCE)) {
+                NamingMetrics.Histogram histogram = NamingMetrics.getHistogram(name, phase);
+                if (histogram != null) {
+                    JSONObject latency = new JSONObject();
+                    latency.put("count", histogram.getCount());
+                    latency.put("p50Micros", histogram.getPercentile(0.5));
+                    latency.put("p99Micros", histogram.getPercentile(0.99));
+                    histograms.put(name, latency);
+                }
+            }
+            if (!histograms.isEmpty()) {
+                phases.put(phase.getKey(), histograms);
+            }
+        }
+        return phases;
+    }
+
+    /**
+     * Counts every write of build.xml, not only the ones done by the plugin.
+     */
+    @TestExtension
+    public static class RunSaveCounter extends SaveableListener {
+        static final LongAdder SAVES = new LongAdder();
+
+        @Override
+        public void onChange(Saveable o, XmlFile file) {
+            if (o instanceof Run) {
+                SAVES.increment();
+            }
+        }
+    }
+
+    /**
+     * Samples memory allocated by all threads. Executor threads end with their builds
+     * so the last value seen for every thread is kept.
+     */
+    private static class AllocationSampler extends Thread {
+        private final com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        private final Map<Long, Long> initial = new HashMap<>();
+        private final Map<Long, Long> last = new HashMap<>();
+        private volatile boolean running = true;
+
+        AllocationSampler() {
+            super("LoadTestRunner allocation sampler");
+            setDaemon(true);
+            sample(initial);
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                sample(last);
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+
+        /**
+         * @return bytes allocated since the sampler was created
+         */
+        long stop() throws InterruptedException {
+            running = false;
+            join();
+            sample(last);
+            long allocated = 0;
+            for (Map.Entry<Long, Long> entry : last.entrySet()) {
+                allocated += entry.getValue() - initial.getOrDefault(entry.getKey(), 0L);
+            }
+            return allocated;
+        }
+
+        private void sample(Map<Long, Long> values) {
+            long[] ids = threads.getAllThreadIds();
+            long[] bytes = threads.getThreadAllocatedBytes(ids);
+            for (int i = 0; i < ids.length; i++) {
+                if (bytes[i] >= 0) {
+                    values.put(ids[i], bytes[i]);
+                }
+            }
+        }
+    }
+}
@@ -2,16 +2,35 @@ package org.jenkinsci.plugins.buildnamesetter;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
 
 import hudson.EnvVars;
+import hudson.Launcher;
+import hudson.matrix.AxisList;
+import hudson.matrix.MatrixBuild;
+import hudson.matrix.MatrixProject;
+import hudson.matrix.MatrixRun;
+import hudson.matrix.TextAxis;
+import hudson.model.AbstractBuild;
+import hudson.model.BuildListener;
 import hudson.model.FreeStyleBuild;
 import hudson.model.FreeStyleProject;
 import hudson.model.Result;
 import hudson.model.TaskListener;
+import net.sf.json.JSONObject;
 import org.jenkinsci.plugins.EnvironmentVarSetter;
+import org.jenkinsci.plugins.tokenmacro.DataBoundTokenMacro;
 import org.junit.jupiter.api.Test;
 import org.jvnet.hudson.test.Issue;
 import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.TestBuilder;
+import org.jvnet.hudson.test.TestExtension;
 import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
 
 @WithJenkins
@@ -65,6 +84,17 @@ class BuildNameSetterTest {
         assertDisplayName(fooBuild, "d_built-in_foo");
     }
 
+    @Test
+    void shouldUse_new_name_in_description(JenkinsRule jenkins) throws Exception {
+        FreeStyleProject fooProj = jenkins.createFreeStyleProject("foo");
+        BuildNameSetter setter = getDefaultSetter("v_${BUILD_NUMBER}");
+        setter.setDescriptionTemplate("${BUILD_DISPLAY_NAME} ${ENV,var=\"BUILD_DISPLAY_NAME\"}");
+        fooProj.getBuildWrappersList().add(setter);
+
+        FreeStyleBuild fooBuild = jenkins.buildAndAssertSuccess(fooProj);
+        assertEquals("v_1 v_1", fooBuild.getDescription());
+    }
+
     @Issue("34181")
     @Test
     void shouldUse_default_config_values_if_null(JenkinsRule jenkins) throws Exception {
@@ -75,6 +105,134 @@ class BuildNameSetterTest {
         assertDisplayName(fooBuild, "foo");
     }
 
+    @Test
+    void shouldSet_name_and_description(JenkinsRule jenkins) throws Exception {
+        FreeStyleProject fooProj = jenkins.createFreeStyleProject("foo");
+        BuildNameSetter setter = getDefaultSetter("e_${BUILD_NUMBER}");
+        setter.setDescriptionTemplate("desc_${JOB_NAME}");
+        fooProj.getBuildWrappersList().add(setter);
+
+        FreeStyleBuild fooBuild = fooProj.scheduleBuild2(0).get();
+        assertDisplayName(fooBuild, "e_1");
+        assertEquals("desc_foo", fooBuild.getDescription());
+    }
+
+    @Test
+    void shouldRestore_values_changed_during_build(JenkinsRule jenkins) throws Exception {
+        FreeStyleProject fooProj = jenkins.createFreeStyleProject("foo");
+        BuildNameSetter setter = getDefaultSetter("fixed_name");
+        setter.setDescriptionTemplate("fixed description");
+        fooProj.getBuildWrappersList().add(setter);
+        fooProj.getBuildersList().add(new TestBuilder() {
+            @Override
+            public boolean perform(AbstractBuild<?, ?> build, Launcher launcher, BuildListener listener)
+                    throws IOException {
+                build.setDisplayName("changed_name");
+                build.setDescription("changed description");
+                return true;
+            }
+        });
+
+        FreeStyleBuild fooBuild = jenkins.buildAndAssertSuccess(fooProj);
+        assertDisplayName(fooBuild, "fixed_name");
+        assertEquals("fixed description", fooBuild.getDescription());
+    }
+
+    @Test
+    void shouldUse_macros_evaluated_before_timeout(JenkinsRule jenkins) throws Exception {
+        FreeStyleProject fooProj = jenkins.createFreeStyleProject("foo");
+        fooProj.getBuildWrappersList().add(getDefaultSetter("t_${JOB_NAME}_${SLOW}"));
+
+        Executor.setEvaluationTimeout(1);
+        try {
+            FreeStyleBuild fooBuild = jenkins.buildAndAssertSuccess(fooProj);
+            assertEquals("t_foo_", fooBuild.getDisplayName());
+            jenkins.assertLogContains("did not finish within 1 seconds, using 't_foo_' instead", fooBuild);
+        } finally {
+            Executor.setEvaluationTimeout(0);
+        }
+    }
+
+    @Test
+    void shouldCount_finished_matrix_configurations(JenkinsRule jenkins) throws Exception {
+        MatrixProject matrixProj = jenkins.createProject(MatrixProject.class, "matrix");
+        matrixProj.setAxes(new AxisList(new TextAxis("axis", "a", "b", "c")));
+        matrixProj.getBuildWrappersList().add(getDefaultSetter("${MATRIX_PASSED} of ${MATRIX_TOTAL}"));
+
+        MatrixBuild matrixBuild = jenkins.buildAndAssertSuccess(matrixProj);
+        assertEquals("3 of 3", matrixBuild.getDisplayName());
+    }
+
+    @Test
+    void shouldInherit_matrix_parent_name(JenkinsRule jenkins) throws Exception {
+        MatrixProject matrixProj = jenkins.createProject(MatrixProject.class, "matrix");
+        matrixProj.setAxes(new AxisList(new TextAxis("axis", "a", "b")));
+        BuildNameSetter setter = getDefaultSetter("m_${BUILD_NUMBER}");
+        setter.setMatrixInherit(true);
+        setter.setMatrixSuffixTemplate("_${axis}");
+        matrixProj.getBuildWrappersList().add(setter);
+
+        MatrixBuild matrixBuild = jenkins.buildAndAssertSuccess(matrixProj);
+        assertEquals("m_1", matrixBuild.getDisplayName());
+        for (MatrixRun run : matrixBuild.getExactRuns()) {
+            assertEquals("m_1_" + run.getParent().getCombination().get("axis"), run.getDisplayName());
+        }
+    }
+
+    @Test
+    void shouldReapply_names_to_finished_builds(JenkinsRule jenkins) throws Exception {
+        FreeStyleProject fooProj = jenkins.createFreeStyleProject("foo");
+        fooProj.getBuildWrappersList().add(getDefaultSetter("old_${BUILD_NUMBER}"));
+        jenkins.buildAndAssertSuccess(fooProj);
+        jenkins.buildAndAssertSuccess(fooProj);
+
+        fooProj.getBuildWrappersList().replace(getDefaultSetter("new_${BUILD_NUMBER}"));
+        ReapplyNamesAction action = fooProj.getAction(ReapplyNamesAction.class);
+        action.doReapply(1, 2);
+        assertTimeoutPreemptively(Duration.ofMinutes(1), () -> {
+            while (action.isRunning()) {
+                Thread.sleep(100);
+            }
+        });
+
+        assertEquals("new_1", fooProj.getBuildByNumber(1).getDisplayName());
+        assertEquals("new_2", fooProj.getBuildByNumber(2).getDisplayName());
+        assertFalse(action.isResumable());
+    }
+
+    @Test
+    void shouldFind_build_by_name(JenkinsRule jenkins) throws Exception {
+        FreeStyleProject fooProj = jenkins.createFreeStyleProject("foo");
+        fooProj.getBuildWrappersList().add(getDefaultSetter("v_${BUILD_NUMBER}"));
+        jenkins.buildAndAssertSuccess(fooProj);
+        jenkins.buildAndAssertSuccess(fooProj);
+
+        assertEquals(2, BuildNameIndex.of(fooProj).getNumber("v_2"));
+        JSONObject json = jenkins.getJSON("job/foo/build-names/lookup?name=v_1").getJSONObject();
+        assertEquals(1, json.getInt("number"));
+
+        fooProj.getBuildByNumber(1).delete();
+        assertNull(BuildNameIndex.of(fooProj).getNumber("v_1"));
+    }
+
+    @Test
+    void shouldIndex_existing_builds_without_loading_them(JenkinsRule jenkins) throws Exception {
+        FreeStyleProject fooProj = jenkins.createFreeStyleProject("foo");
+        fooProj.getBuildWrappersList().add(getDefaultSetter("v_${BUILD_NUMBER}"));
+        jenkins.buildAndAssertSuccess(fooProj);
+        jenkins.buildAndAssertSuccess(fooProj);
+
+        BuildNameIndex index = BuildNameIndex.of(fooProj);
+        index.reindex();
+        assertTimeoutPreemptively(Duration.ofMinutes(1), () -> {
+            while (index.isIndexing()) {
+                Thread.sleep(100);
+            }
+        });
+
+        assertEquals(Map.of("v_1", 1, "v_2", 2), index.getNumbers());
+    }
+
     private static void assertDisplayName(FreeStyleBuild build, String expectedName) {
         assertEquals(Result.SUCCESS, build.getResult());
         assertEquals(expectedName, build.getDisplayName());
@@ -89,4 +247,21 @@ class BuildNameSetterTest {
     private static BuildNameSetter getDefaultSetter(String template) {
         return new BuildNameSetter(template, true, true);
     }
+
+    @TestExtension("shouldUse_macros_evaluated_before_timeout")
+    public static class SlowMacro extends DataBoundTokenMacro {
+
+        @Override
+        public boolean acceptsMacroName(String macroName) {
+            return "SLOW".equals(macroName);
+        }
+
+        @Override
+        public String evaluate(AbstractBuild<?, ?> context, TaskListener listener, String macroName)
+                throws InterruptedException {
+            // interrupted when the evaluation times out
+            Thread.sleep(Duration.ofMinutes(1).toMillis());
+            return "late";
+        }
+    }
 }
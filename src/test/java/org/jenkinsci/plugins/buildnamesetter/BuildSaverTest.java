@@ -0,0 +1,46 @@
+package org.jenkinsci.plugins.buildnamesetter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.File;
+
+import hudson.Launcher;
+import hudson.model.AbstractBuild;
+import hudson.model.BuildListener;
+import hudson.model.FreeStyleBuild;
+import hudson.model.FreeStyleProject;
+import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.TestBuilder;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+@WithJenkins
+class BuildSaverTest {
+
+    @Test
+    void shouldSave_burst_of_updates_once(JenkinsRule jenkins) throws Exception {
+        long[] savesDuringBurst = new long[1];
+        FreeStyleProject project = jenkins.createFreeStyleProject("foo");
+        project.getBuildersList().add(new TestBuilder() {
+            @Override
+            public boolean perform(AbstractBuild<?, ?> build, Launcher launcher, BuildListener listener) {
+                Executor executor = new Executor(build, listener);
+                // saved immediately, the following updates are within the interval
+                executor.setEvaluatedNameAndDescription("name 0", null);
+                NamingMetrics.reset();
+                for (int i = 1; i <= 20; i++) {
+                    executor.setEvaluatedNameAndDescription("name " + i, null);
+                }
+                savesDuringBurst[0] = NamingMetrics.getCounter(NamingMetrics.BUILD_SAVES);
+                return true;
+            }
+        });
+
+        FreeStyleBuild build = jenkins.buildAndAssertSuccess(project);
+
+        assertEquals(0, savesDuringBurst[0]);
+        // pending save is flushed when the build completes
+        assertEquals(1, NamingMetrics.getCounter(NamingMetrics.BUILD_SAVES));
+        assertEquals("name 20", BuildNameIndex.readDisplayName(new File(build.getRootDir(), "build.xml")));
+    }
+}
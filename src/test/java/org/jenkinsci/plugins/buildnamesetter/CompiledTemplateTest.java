@@ -0,0 +1,65 @@
+package org.jenkinsci.plugins.buildnamesetter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class CompiledTemplateTest {
+
+    @Test
+    void shouldNotExpand_literal_template() throws Exception {
+        CompiledTemplate template = CompiledTemplate.compile("release build");
+
+        assertTrue(template.isLiteral());
+        assertEquals("release build", template.evaluate(macro -> {
+            throw new AssertionError("Literal template must not be expanded");
+        }, new HashMap<>()));
+    }
+
+    @Test
+    void shouldSplit_macros() {
+        CompiledTemplate template = CompiledTemplate.compile("a_#${BUILD_NUMBER}_$JOB_NAME-${ENV,var=\"X}\"}");
+
+        assertFalse(template.isLiteral());
+        assertEquals(List.of("${BUILD_NUMBER}", "$JOB_NAME", "${ENV,var=\"X}\"}"), template.getMacros());
+    }
+
+    @Test
+    void shouldEvaluate_same_macro_once() throws Exception {
+        CompiledTemplate template = CompiledTemplate.compile("c_${JOB_NAME}_d_${JOB_NAME}");
+        List<String> expanded = new ArrayList<>();
+
+        String result = template.evaluate(macro -> {
+            expanded.add(macro);
+            return "bar";
+        }, new HashMap<>());
+
+        assertEquals("c_bar_d_bar", result);
+        assertEquals(List.of("${JOB_NAME}"), expanded);
+    }
+
+    @Test
+    void shouldKeep_unterminated_macro_together() {
+        CompiledTemplate template = CompiledTemplate.compile("x_${BUILD_NUMBER");
+
+        assertEquals(List.of("${BUILD_NUMBER"), template.getMacros());
+    }
+
+    @Test
+    void shouldDetect_stable_templates() {
+        assertTrue(CompiledTemplate.compile("literal").isStable());
+        assertTrue(CompiledTemplate.compile("#${BUILD_NUMBER} $JOB_NAME").isStable());
+        assertTrue(CompiledTemplate.compile("${ENV,var=\"JOB_NAME\"}").isStable());
+        assertTrue(CompiledTemplate.isStable("${BUILD_NUMBER}", null));
+
+        assertFalse(CompiledTemplate.compile("${BUILD_NUMBER}_${GIT_REVISION}").isStable());
+        assertFalse(CompiledTemplate.compile("${ENV,var=\"VERSION\"}").isStable());
+        assertFalse(CompiledTemplate.isStable("${BUILD_NUMBER}", "${BUILD_LOG_REGEX}"));
+    }
+}
@@ -0,0 +1,82 @@
+package org.jenkinsci.plugins.buildnamesetter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+
+import hudson.model.FreeStyleBuild;
+import hudson.model.FreeStyleProject;
+import hudson.model.TaskListener;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+@WithJenkins
+class DescriptionFileActionTest {
+
+    private int threshold;
+
+    @BeforeEach
+    void setUp() {
+        threshold = DescriptionFileAction.getThreshold();
+        DescriptionFileAction.setThreshold(100);
+    }
+
+    @AfterEach
+    void tearDown() {
+        DescriptionFileAction.setThreshold(threshold);
+    }
+
+    @Test
+    void shouldStore_long_description_in_file(JenkinsRule jenkins) throws Exception {
+        FreeStyleProject fooProj = jenkins.createFreeStyleProject("foo");
+        FreeStyleBuild fooBuild = jenkins.buildAndAssertSuccess(fooProj);
+        String description = "<b>shard</b> ".repeat(50);
+
+        new Executor(fooBuild, TaskListener.NULL).setDescription(description);
+
+        DescriptionFileAction action = fooBuild.getAction(DescriptionFileAction.class);
+        assertNotNull(action);
+        assertEquals(description, action.getDescription());
+        assertTrue(fooBuild.getDescription().length() < description.length());
+        assertTrue(new File(fooBuild.getRootDir(), DescriptionFileAction.FILE_NAME).exists());
+    }
+
+    @Test
+    void shouldRemove_file_for_short_description(JenkinsRule jenkins) throws Exception {
+        FreeStyleProject fooProj = jenkins.createFreeStyleProject("foo");
+        FreeStyleBuild fooBuild = jenkins.buildAndAssertSuccess(fooProj);
+        Executor executor = new Executor(fooBuild, TaskListener.NULL);
+
+        executor.setDescription("x".repeat(200));
+        executor.setDescription("short");
+
+        assertEquals("short", fooBuild.getDescription());
+        assertNull(fooBuild.getAction(DescriptionFileAction.class));
+        assertFalse(new File(fooBuild.getRootDir(), DescriptionFileAction.FILE_NAME).exists());
+    }
+
+    @Test
+    void shouldDrop_file_when_description_is_edited(JenkinsRule jenkins) throws Exception {
+        FreeStyleProject fooProj = jenkins.createFreeStyleProject("foo");
+        FreeStyleBuild fooBuild = jenkins.buildAndAssertSuccess(fooProj);
+        new Executor(fooBuild, TaskListener.NULL).setDescription("x".repeat(200));
+
+        fooBuild.setDescription("edited");
+
+        assertEquals("edited", DescriptionFileAction.getDescription(fooBuild));
+        assertNull(fooBuild.getAction(DescriptionFileAction.class));
+        assertFalse(new File(fooBuild.getRootDir(), DescriptionFileAction.FILE_NAME).exists());
+    }
+
+    @Test
+    void shouldSummarize_as_plain_text() {
+        assertEquals("a b", DescriptionFileAction.summarize("<p>a</p>\n<i>b</i>"));
+    }
+}
@@ -0,0 +1,56 @@
+package org.jenkinsci.plugins.buildnamesetter;
+
+import hudson.Launcher;
+import hudson.model.AbstractBuild;
+import hudson.model.BuildListener;
+import hudson.model.FreeStyleBuild;
+import hudson.model.FreeStyleProject;
+import hudson.model.TaskListener;
+import jenkins.benchmark.jmh.JmhBenchmark;
+import jenkins.benchmark.jmh.JmhBenchmarkState;
+import jenkins.model.Jenkins;
+import org.jenkinsci.plugins.tokenmacro.MacroEvaluationException;
+import org.jvnet.hudson.test.TestBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+
+@JmhBenchmark
+public class ExecutorBenchmark {
+
+    /** Lines of the console output, so log tokens have something to scan. */
+    private static final int LOG_LINES = 10_000;
+
+    public static class JenkinsState extends JmhBenchmarkState {
+        Executor executor;
+
+        @Override
+        public void setup() throws Exception {
+            FreeStyleProject project = Jenkins.get().createProject(FreeStyleProject.class, "benchmark");
+            project.getBuildersList().add(new TestBuilder() {
+                @Override
+                public boolean perform(AbstractBuild<?, ?> build, Launcher launcher, BuildListener listener) {
+                    for (int i = 0; i < LOG_LINES; i++) {
+                        listener.getLogger().println("[INFO] Compiling module " + i);
+                    }
+                    return true;
+                }
+            });
+            FreeStyleBuild build = project.scheduleBuild2(0).get();
+            executor = new Executor(build, TaskListener.NULL);
+        }
+    }
+
+    @Benchmark
+    public String literalTemplate(JenkinsState state) throws MacroEvaluationException {
+        return state.executor.evaluateMacro("release candidate");
+    }
+
+    @Benchmark
+    public String simpleTokenTemplate(JenkinsState state) throws MacroEvaluationException {
+        return state.executor.evaluateMacro("#${BUILD_NUMBER}-${JOB_NAME}");
+    }
+
+    @Benchmark
+    public String heavyTokenTemplate(JenkinsState state) throws MacroEvaluationException {
+        return state.executor.evaluateMacro("${BUILD_LOG, maxLines=1000} ${ENV,var=\"JOB_NAME\"}");
+    }
+}
@@ -0,0 +1,23 @@
+package org.jenkinsci.plugins.buildnamesetter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+class NamingMetricsHistogramTest {
+
+    @Test
+    void shouldEstimate_percentiles() {
+        NamingMetrics.Histogram histogram = new NamingMetrics.Histogram("us", new long[]{10, 100, 1000});
+        for (int i = 0; i < 98; i++) {
+            histogram.record(5);
+        }
+        histogram.record(50);
+        histogram.record(5000);
+
+        assertEquals(100, histogram.getCount());
+        assertEquals(10, histogram.getPercentile(0.5));
+        assertEquals(100, histogram.getPercentile(0.99));
+        assertEquals(5000, histogram.getPercentile(1));
+    }
+}
@@ -0,0 +1,27 @@
+package org.jenkinsci.plugins.buildnamesetter;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import hudson.model.FreeStyleProject;
+import net.sf.json.JSONObject;
+import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+@WithJenkins
+class NamingMetricsTest {
+
+    @Test
+    void shouldExpose_metrics_as_json(JenkinsRule jenkins) throws Exception {
+        NamingMetrics.reset();
+        FreeStyleProject project = jenkins.createFreeStyleProject("foo");
+        project.getBuildWrappersList().add(new BuildNameSetter("#${BUILD_NUMBER}", true, true));
+        jenkins.buildAndAssertSuccess(project);
+
+        assertTrue(NamingMetrics.getHistogram(NamingMetrics.EVALUATION, NamingPhase.START).getCount() > 0);
+
+        JSONObject json = jenkins.getJSON("build-name-setter-metrics/").getJSONObject();
+        assertTrue(json.getJSONObject("histograms").has("evaluation.start"));
+        assertTrue(json.getJSONObject("counters").getLong(NamingMetrics.BUILD_SAVES) > 0);
+    }
+}
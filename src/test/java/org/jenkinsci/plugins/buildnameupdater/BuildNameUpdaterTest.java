@@ -0,0 +1,99 @@
+package org.jenkinsci.plugins.buildnameupdater;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import hudson.FilePath;
+import hudson.Launcher;
+import hudson.model.AbstractBuild;
+import hudson.model.AbstractProject;
+import hudson.model.BuildListener;
+import hudson.model.FreeStyleBuild;
+import hudson.model.FreeStyleProject;
+import hudson.tasks.BuildWrapper;
+import hudson.tasks.BuildWrapperDescriptor;
+import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.TestBuilder;
+import org.jvnet.hudson.test.TestExtension;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+@WithJenkins
+class BuildNameUpdaterTest {
+
+    @Test
+    void shouldUse_prefetched_file(JenkinsRule jenkins) throws Exception {
+        FreeStyleProject project = createProject(jenkins);
+        // changed after prefetching, the first build step still uses the prefetched value
+        project.getBuildWrappersList().add(new ChangeVersion());
+
+        FreeStyleBuild build = jenkins.buildAndAssertSuccess(project);
+
+        assertEquals("1.0", build.getDisplayName());
+        jenkins.assertLogContains("Using prefetched files: [version.txt]", build);
+    }
+
+    @Test
+    void shouldRead_file_changed_by_previous_step(JenkinsRule jenkins) throws Exception {
+        FreeStyleProject project = createProject(jenkins);
+        project.getBuildersList().add(0, new TestBuilder() {
+            @Override
+            public boolean perform(AbstractBuild<?, ?> build, Launcher launcher, BuildListener listener)
+                    throws IOException, InterruptedException {
+                build.getWorkspace().child("version.txt").write("2.0\n", StandardCharsets.UTF_8.name());
+                return true;
+            }
+        });
+
+        FreeStyleBuild build = jenkins.buildAndAssertSuccess(project);
+
+        assertEquals("2.0", build.getDisplayName());
+        jenkins.assertLogContains("Checking prefetched files: [version.txt]", build);
+    }
+
+    private static FreeStyleProject createProject(JenkinsRule jenkins) throws Exception {
+        FreeStyleProject project = jenkins.createFreeStyleProject();
+        FilePath workspace = jenkins.jenkins.getWorkspaceFor(project);
+        workspace.child("version.txt").write("1.0\n", StandardCharsets.UTF_8.name());
+        BuildNameUpdater updater = new BuildNameUpdater(true, "version.txt", false, null, false);
+        updater.setPrefetch(true);
+        project.getBuildersList().add(updater);
+        return project;
+    }
+
+    /**
+     * Changes the file once it was prefetched, so the value read by the build step shows where it comes from.
+     */
+    public static class ChangeVersion extends BuildWrapper {
+
+        @Override
+        public Environment setUp(AbstractBuild build, Launcher launcher, BuildListener listener)
+                throws IOException, InterruptedException {
+            List<String> paths = List.of("version.txt");
+            Future<Map<String, FileContent>> prefetched = PrefetchedFiles.take(build, paths);
+            try {
+                prefetched.get();
+            } catch (ExecutionException e) {
+                throw new IOException(e);
+            }
+            PrefetchedFiles.start(build, paths, prefetched);
+            build.getWorkspace().child("version.txt").write("2.0\n", StandardCharsets.UTF_8.name());
+            return new Environment() {
+            };
+        }
+
+        @TestExtension("shouldUse_prefetched_file")
+        public static class DescriptorImpl extends BuildWrapperDescriptor {
+            @Override
+            public boolean isApplicable(AbstractProject<?, ?> item) {
+                return true;
+            }
+        }
+    }
+}
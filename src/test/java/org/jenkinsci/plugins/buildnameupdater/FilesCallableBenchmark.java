@@ -0,0 +1,72 @@
+package org.jenkinsci.plugins.buildnameupdater;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+
+import jenkins.benchmark.jmh.JmhBenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+@JmhBenchmark
+public class FilesCallableBenchmark {
+
+    private static final int HUGE_FILE_SIZE = 16 * 1024 * 1024;
+
+    /**
+     * Files are shared by all combinations of parameters and forks, they are removed together with the build output.
+     */
+    private static final File WORKSPACE = new File("target", "benchmark-workspace");
+
+    @State(Scope.Benchmark)
+    public static class Workspace {
+
+        @Param({"small.txt", "huge.txt", "no-newline.txt"})
+        String file;
+
+        @Param({"1", "-1"})
+        int lineNumber;
+
+        BuildNameUpdater.FilesCallable callable;
+
+        @Setup(Level.Trial)
+        public void setup() throws IOException {
+            Files.createDirectories(WORKSPACE.toPath());
+            File target = new File(WORKSPACE, file);
+            switch (file) {
+                case "small.txt" -> Files.writeString(target.toPath(), "1.2.3\n", StandardCharsets.UTF_8);
+                case "huge.txt" -> write(target, "line of the huge file\n".getBytes(StandardCharsets.UTF_8));
+                default -> write(target, "0123456789abcdef".getBytes(StandardCharsets.UTF_8));
+            }
+            callable = new BuildNameUpdater.FilesCallable(List.of(file), lineNumber);
+        }
+
+        /**
+         * Writes the file only when it is not there from the previous combination of parameters.
+         */
+        private static void write(File file, byte[] chunk) throws IOException {
+            int size = HUGE_FILE_SIZE / chunk.length * chunk.length;
+            if (file.length() == size) {
+                return;
+            }
+            try (OutputStream out = Files.newOutputStream(file.toPath())) {
+                for (int written = 0; written < size; written += chunk.length) {
+                    out.write(chunk);
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public Map<String, FileContent> readLine(Workspace state) throws IOException {
+        return state.callable.invoke(WORKSPACE, null);
+    }
+}
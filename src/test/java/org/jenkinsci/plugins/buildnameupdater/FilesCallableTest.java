@@ -0,0 +1,45 @@
+package org.jenkinsci.plugins.buildnameupdater;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class FilesCallableTest {
+
+    @TempDir
+    private Path folder;
+
+    @Test
+    void shouldNot_read_unchanged_file() throws Exception {
+        File file = folder.resolve("version.txt").toFile();
+        Files.writeString(file.toPath(), "1.0.0\n", StandardCharsets.UTF_8);
+        // older than the resolution of modification time so it can be cached
+        assertTrue(file.setLastModified(System.currentTimeMillis() - 60_000));
+
+        FileContent first = new BuildNameUpdater.FilesCallable(List.of("version.txt"), 1)
+                .invoke(folder.toFile(), null).get("version.txt");
+        assertEquals("1.0.0", first.value());
+        assertTrue(first.cacheable());
+
+        BuildNameUpdater.FilesCallable repeated = new BuildNameUpdater.FilesCallable(List.of("version.txt"), 1,
+                null, ValueExtractor.LINE, null, Map.of("version.txt", first));
+        assertTrue(repeated.invoke(folder.toFile(), null).get("version.txt").unchanged());
+
+        Files.writeString(file.toPath(), "1.0.1\n", StandardCharsets.UTF_8);
+        FileContent changed = repeated.invoke(folder.toFile(), null).get("version.txt");
+        assertFalse(changed.unchanged());
+        assertEquals("1.0.1", changed.value());
+        // just modified so another change in the same second would not be noticed
+        assertFalse(changed.cacheable());
+    }
+}
@@ -0,0 +1,88 @@
+package org.jenkinsci.plugins.buildnameupdater;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class LineReaderTest {
+
+    @TempDir
+    private Path folder;
+
+    @Test
+    void shouldRead_selected_line() throws Exception {
+        File file = write("1.0.0\r\nsecond\nthird\n");
+
+        assertEquals("1.0.0", LineReader.readLine(file, 1, 100, StandardCharsets.UTF_8));
+        assertEquals("second", LineReader.readLine(file, 2, 100, StandardCharsets.UTF_8));
+        assertEquals("third", LineReader.readLine(file, -1, 100, StandardCharsets.UTF_8));
+        assertEquals("1.0.0", LineReader.readLine(file, -3, 100, StandardCharsets.UTF_8));
+        assertNull(LineReader.readLine(file, 4, 100, StandardCharsets.UTF_8));
+        assertNull(LineReader.readLine(file, -4, 100, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void shouldRead_last_line_without_new_line() throws Exception {
+        File file = write("first\nlast");
+
+        assertEquals("last", LineReader.readLine(file, -1, 100, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void shouldRead_lines_separated_by_carriage_return() throws Exception {
+        File file = write("first\rsecond\r\nthird\r");
+
+        assertEquals("second", LineReader.readLine(file, 2, 100, StandardCharsets.UTF_8));
+        assertEquals("third", LineReader.readLine(file, 3, 100, StandardCharsets.UTF_8));
+        assertEquals("third", LineReader.readLine(file, -1, 100, StandardCharsets.UTF_8));
+        assertEquals("first", LineReader.readLine(file, -3, 100, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void shouldTruncate_long_line() throws Exception {
+        File file = write("first\n" + "0123456789".repeat(100));
+
+        assertEquals("first", LineReader.readLine(file, 1, 16, StandardCharsets.UTF_8));
+        assertEquals("0123456789012345", LineReader.readLine(file, 2, 16, StandardCharsets.UTF_8));
+        assertEquals("0123456789012345", LineReader.readLine(file, -1, 16, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void shouldNot_scan_whole_line_from_end() throws Exception {
+        File file = write("first\n" + "0123456789".repeat(10_000));
+
+        // beginning of the line is too far, so the end of the line is used
+        assertEquals("4567890123456789", LineReader.readLine(file, -1, 16, StandardCharsets.UTF_8));
+        assertEquals("first", LineReader.readLine(file, -2, 16, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void shouldNot_cut_multi_byte_character() throws Exception {
+        File file = write("\u00e9\u00e9\u00e9\n" + "\u00e9".repeat(10_000));
+
+        // every character takes two bytes
+        assertEquals("\u00e9", LineReader.readLine(file, 1, 3, StandardCharsets.UTF_8));
+        assertEquals("\u00e9", LineReader.readLine(file, -1, 3, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void shouldReturnNull_for_empty_file() throws Exception {
+        File file = write("");
+
+        assertNull(LineReader.readLine(file, 1, 100, StandardCharsets.UTF_8));
+        assertNull(LineReader.readLine(file, -1, 100, StandardCharsets.UTF_8));
+    }
+
+    private File write(String content) throws Exception {
+        Path file = Files.createTempFile(folder, "version", ".txt");
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+        return file.toFile();
+    }
+}
@@ -0,0 +1,57 @@
+package org.jenkinsci.plugins.buildnameupdater;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import hudson.FilePath;
+import hudson.Launcher;
+import hudson.model.AbstractBuild;
+import hudson.model.BuildListener;
+import hudson.model.FreeStyleBuild;
+import hudson.model.FreeStyleProject;
+import hudson.model.Run;
+import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.TestBuilder;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+@WithJenkins
+class LiveBuildNameUpdaterTest {
+
+    @Test
+    void shouldFollow_file_during_build(JenkinsRule jenkins) throws Exception {
+        FreeStyleProject project = jenkins.createFreeStyleProject();
+        LiveBuildNameUpdater updater = new LiveBuildNameUpdater("status.txt");
+        updater.setInterval(1);
+        project.getBuildWrappersList().add(updater);
+        project.getBuildersList().add(new TestBuilder() {
+            @Override
+            public boolean perform(AbstractBuild<?, ?> build, Launcher launcher, BuildListener listener)
+                    throws IOException, InterruptedException {
+                FilePath status = build.getWorkspace().child("status.txt");
+                status.write("shard 1\n", StandardCharsets.UTF_8.name());
+                awaitName(build, "shard 1");
+                status.write("shard 1\nshard 2\n", StandardCharsets.UTF_8.name());
+                awaitName(build, "shard 2");
+                return true;
+            }
+        });
+
+        FreeStyleBuild build = jenkins.buildAndAssertSuccess(project);
+
+        assertEquals("shard 2", build.getDisplayName());
+    }
+
+    private static void awaitName(Run<?, ?> build, String name) {
+        // the name changes while the build step is still running
+        assertTimeoutPreemptively(Duration.ofSeconds(30), () -> {
+            while (!name.equals(build.getDisplayName())) {
+                Thread.sleep(100);
+            }
+        });
+    }
+}
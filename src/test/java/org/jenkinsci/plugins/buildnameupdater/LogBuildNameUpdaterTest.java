@@ -0,0 +1,49 @@
+package org.jenkinsci.plugins.buildnameupdater;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import hudson.Launcher;
+import hudson.model.AbstractBuild;
+import hudson.model.BuildListener;
+import hudson.model.FreeStyleBuild;
+import hudson.model.FreeStyleProject;
+import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.TestBuilder;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+@WithJenkins
+class LogBuildNameUpdaterTest {
+
+    @Test
+    void shouldUse_first_match(JenkinsRule jenkins) throws Exception {
+        FreeStyleBuild build = buildWithOutput(jenkins, new LogBuildNameUpdater("Version: (\\S+)"));
+
+        assertEquals("1.0", build.getDisplayName());
+    }
+
+    @Test
+    void shouldUse_latest_match(JenkinsRule jenkins) throws Exception {
+        LogBuildNameUpdater updater = new LogBuildNameUpdater("Version: (\\S+)");
+        updater.setLatest(true);
+
+        FreeStyleBuild build = buildWithOutput(jenkins, updater);
+
+        assertEquals("2.0", build.getDisplayName());
+    }
+
+    private static FreeStyleBuild buildWithOutput(JenkinsRule jenkins, LogBuildNameUpdater updater) throws Exception {
+        FreeStyleProject project = jenkins.createFreeStyleProject();
+        project.getBuildWrappersList().add(updater);
+        project.getBuildersList().add(new TestBuilder() {
+            @Override
+            public boolean perform(AbstractBuild<?, ?> build, Launcher launcher, BuildListener listener) {
+                listener.getLogger().println("Building...");
+                listener.getLogger().println("Version: 1.0");
+                listener.getLogger().println("Version: 2.0");
+                return true;
+            }
+        });
+        return jenkins.buildAndAssertSuccess(project);
+    }
+}
@@ -0,0 +1,104 @@
+package org.jenkinsci.plugins.buildnameupdater;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ValueExtractorTest {
+
+    @TempDir
+    private Path folder;
+
+    @Test
+    void shouldExtract_xml_element() throws Exception {
+        File file = write("<?xml version=\"1.0\"?>\n"
+                + "<project xmlns=\"http://maven.apache.org/POM/4.0.0\">\n"
+                + "  <parent><version>4.0</version></parent>\n"
+                + "  <version> 1.2.3 </version>\n"
+                + "  <build><not-closed>\n");
+
+        assertEquals("1.2.3", ValueExtractor.XML.extract(file, "/project/version", 1, 100));
+        assertEquals("4.0", ValueExtractor.XML.extract(file, "/project/parent/version", 1, 100));
+    }
+
+    @Test
+    void shouldExtract_json_pointer() throws Exception {
+        File file = write("{\"name\": \"app\", \"scripts\": {\"a/b\": [1, {\"x\": \"y\"}]},"
+                + " \"version\": \"2.0.\\u0031\", \"private\": true, \"broken\": ");
+
+        assertEquals("2.0.1", ValueExtractor.JSON.extract(file, "/version", 1, 100));
+        assertEquals("y", ValueExtractor.JSON.extract(file, "/scripts/a~1b/1/x", 1, 100));
+        assertEquals("1", ValueExtractor.JSON.extract(file, "/scripts/a~1b/0", 1, 100));
+        assertNull(ValueExtractor.JSON.extract(file, "/scripts", 1, 100));
+        assertNull(ValueExtractor.JSON.extract(file, "/scripts/missing", 1, 100));
+    }
+
+    @Test
+    void shouldExtract_property() throws Exception {
+        File file = write("# version=0.0\n"
+                + "group = org.example\n"
+                + "description = first \\\n"
+                + "    second\n"
+                + "version: 3.1\n");
+
+        assertEquals("3.1", ValueExtractor.PROPERTIES.extract(file, "version", 1, 100));
+        assertEquals("first second", ValueExtractor.PROPERTIES.extract(file, "description", 1, 100));
+        assertNull(ValueExtractor.PROPERTIES.extract(file, "missing", 1, 100));
+    }
+
+    @Test
+    void shouldUse_last_occurrence_of_property() throws Exception {
+        File file = write("version=1.0\n"
+                + "version=2.0\n");
+
+        assertEquals("2.0", ValueExtractor.PROPERTIES.extract(file, "version", 1, 100));
+    }
+
+    @Test
+    void shouldTruncate_value() throws Exception {
+        File file = write("version=" + "x".repeat(100));
+
+        assertEquals("x".repeat(10), ValueExtractor.PROPERTIES.extract(file, "version", 1, 10));
+    }
+
+    @Test
+    void shouldTruncate_value_by_bytes() throws Exception {
+        File json = write("{\"version\": \"" + "\u00e9".repeat(100) + "\"}");
+        File xml = write("<version>" + "x".repeat(100) + "</version>");
+
+        assertEquals("\u00e9".repeat(5), ValueExtractor.JSON.extract(json, "/version", 1, 11));
+        assertEquals("x".repeat(10), ValueExtractor.XML.extract(xml, "/version", 1, 10));
+    }
+
+    @Test
+    void shouldFail_for_invalid_json() throws Exception {
+        File file = write("{\"version\": \"\\uZZZZ\"}");
+
+        assertThrows(IOException.class, () -> ValueExtractor.JSON.extract(file, "/version", 1, 100));
+        assertThrows(IOException.class, () -> ValueExtractor.JSON.extract(file, "version", 1, 100));
+    }
+
+    @Test
+    void shouldValidate_expression() {
+        assertThrows(IllegalArgumentException.class, () -> ValueExtractor.JSON.validate("version"));
+        assertThrows(IllegalArgumentException.class, () -> ValueExtractor.XML.validate("/"));
+        assertThrows(IllegalArgumentException.class, () -> ValueExtractor.PROPERTIES.validate(" "));
+        assertDoesNotThrow(() -> ValueExtractor.JSON.validate("/version"));
+    }
+
+    private File write(String content) throws Exception {
+        Path file = Files.createTempFile(folder, "manifest", ".txt");
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+        return file.toFile();
+    }
+}
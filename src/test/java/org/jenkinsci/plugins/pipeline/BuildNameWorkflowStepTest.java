@@ -0,0 +1,56 @@
+package org.jenkinsci.plugins.pipeline;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Map;
+
+import org.jenkinsci.plugins.buildnamesetter.DescriptionSectionsAction;
+import org.jenkinsci.plugins.workflow.cps.CpsFlowDefinition;
+import org.jenkinsci.plugins.workflow.job.WorkflowJob;
+import org.jenkinsci.plugins.workflow.job.WorkflowRun;
+import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+@WithJenkins
+class BuildNameWorkflowStepTest {
+
+    @Test
+    void shouldSet_name_and_description_outside_node(JenkinsRule jenkins) throws Exception {
+        WorkflowJob job = jenkins.createProject(WorkflowJob.class, "foo");
+        job.setDefinition(new CpsFlowDefinition(
+                "setBuildName 'v_${BUILD_NUMBER}'\n"
+                        + "setBuildDescription 'job ${JOB_NAME}'", true));
+
+        WorkflowRun run = jenkins.buildAndAssertSuccess(job);
+
+        assertEquals("v_1", run.getDisplayName());
+        assertEquals("job foo", run.getDescription());
+    }
+
+    @Test
+    void shouldKeep_description_updates_from_parallel_branches(JenkinsRule jenkins) throws Exception {
+        WorkflowJob job = jenkins.createProject(WorkflowJob.class, "foo");
+        job.setDefinition(new CpsFlowDefinition(
+                "def branches = [:]\n"
+                        + "for (int i = 0; i < 5; i++) {\n"
+                        + "  def branch = \"b${i}\"\n"
+                        + "  branches[branch] = { setBuildDescription descriptionTemplate: branch, append: true }\n"
+                        + "}\n"
+                        + "parallel branches\n"
+                        + "setBuildDescription descriptionTemplate: 'first', key: 'status'\n"
+                        + "setBuildDescription descriptionTemplate: 'second', key: 'status'", true));
+
+        WorkflowRun run = jenkins.buildAndAssertSuccess(job);
+
+        String description = run.getDescription();
+        for (int i = 0; i < 5; i++) {
+            assertTrue(description.contains("b" + i), description);
+        }
+        // sections are kept out of the description
+        assertFalse(description.contains("first") || description.contains("second"), description);
+        assertEquals(Map.of("status", "second"), run.getAction(DescriptionSectionsAction.class).getSections());
+    }
+}